@@ -30,6 +30,14 @@ public interface ConfigurationOptions {
     String ES_NODES_DISCOVERY = "es.nodes.discovery";
     String ES_NODES_DISCOVERY_DEFAULT = "true";
 
+    /** How long the cluster metadata resolved when the job is submitted can be used by its tasks (0 disables caching) */
+    String ES_METADATA_TTL = "es.metadata.ttl";
+    String ES_METADATA_TTL_DEFAULT = "10m";
+
+    /** How long a failing node is avoided (doubles with each consecutive failure) */
+    String ES_NODES_COOLDOWN = "es.nodes.cooldown";
+    String ES_NODES_COOLDOWN_DEFAULT = "10s";
+
     /** Elasticsearch port **/
     String ES_PORT = "es.port";
     String ES_PORT_DEFAULT = "9200";
@@ -42,6 +50,16 @@ public interface ConfigurationOptions {
     String ES_BATCH_SIZE_BYTES = "es.batch.size.bytes";
     String ES_BATCH_SIZE_BYTES_DEFAULT = "10mb";
 
+    /** Adaptive batch size - the size (in bytes) is adjusted between the min and es.batch.size.bytes based on the bulk latency and rejections */
+    String ES_BATCH_SIZE_ADAPTIVE = "es.batch.size.adaptive";
+    String ES_BATCH_SIZE_ADAPTIVE_DEFAULT = "false";
+
+    String ES_BATCH_SIZE_ADAPTIVE_MIN = "es.batch.size.adaptive.min";
+    String ES_BATCH_SIZE_ADAPTIVE_MIN_DEFAULT = "1mb";
+
+    String ES_BATCH_SIZE_ADAPTIVE_LATENCY = "es.batch.size.adaptive.latency";
+    String ES_BATCH_SIZE_ADAPTIVE_LATENCY_DEFAULT = "2s";
+
     /** Elasticsearch batch size given in entries */
     String ES_BATCH_SIZE_ENTRIES = "es.batch.size.entries";
     String ES_BATCH_SIZE_ENTRIES_DEFAULT = "0";
@@ -57,11 +75,38 @@ public interface ConfigurationOptions {
     String ES_BATCH_WRITE_RETRY_WAIT = "es.batch.write.retry.wait";
     String ES_BATCH_WRITE_RETRY_WAIT_DEFAULT = "1m";
 
+    /** Write throttling - per second budget (documents and/or bytes) shared by all the tasks of a job (0 means unlimited) */
+    String ES_BATCH_WRITE_THROTTLE_DOCS = "es.batch.write.throttle.docs";
+    String ES_BATCH_WRITE_THROTTLE_DOCS_DEFAULT = "0";
+
+    String ES_BATCH_WRITE_THROTTLE_BYTES = "es.batch.write.throttle.bytes";
+    String ES_BATCH_WRITE_THROTTLE_BYTES_DEFAULT = "0";
+
     String ES_BATCH_WRITE_RETRY_POLICY = "es.batch.write.retry.policy";
     String ES_BATCH_WRITE_RETRY_POLICY_NONE = "none";
     String ES_BATCH_WRITE_RETRY_POLICY_SIMPLE = "simple";
+    String ES_BATCH_WRITE_RETRY_POLICY_BACKOFF = "backoff";
     String ES_BATCH_WRITE_RETRY_POLICY_DEFAULT = ES_BATCH_WRITE_RETRY_POLICY_SIMPLE;
 
+    /** Per-node circuit breaker (used by the backoff retry policy) */
+    String ES_BATCH_WRITE_RETRY_BREAKER_FAILURES = "es.batch.write.retry.breaker.failures";
+    String ES_BATCH_WRITE_RETRY_BREAKER_FAILURES_DEFAULT = "3";
+
+    String ES_BATCH_WRITE_RETRY_BREAKER_COOLDOWN = "es.batch.write.retry.breaker.cooldown";
+    String ES_BATCH_WRITE_RETRY_BREAKER_COOLDOWN_DEFAULT = "30s";
+
+    /** Whether documents are routed on the client side, directly to the node hosting their primary shard */
+    String ES_BATCH_WRITE_SHARD_ROUTING = "es.batch.write.shard.routing";
+    String ES_BATCH_WRITE_SHARD_ROUTING_DEFAULT = "false";
+
+    /** Whether bulk requests are sent in the background while the next batch is being filled */
+    String ES_BATCH_WRITE_ASYNC = "es.batch.write.async";
+    String ES_BATCH_WRITE_ASYNC_DEFAULT = "false";
+
+    /** Maximum number of bulk requests pending in the background (async mode only) */
+    String ES_BATCH_WRITE_ASYNC_INFLIGHT = "es.batch.write.async.inflight";
+    String ES_BATCH_WRITE_ASYNC_INFLIGHT_DEFAULT = "1";
+
     /** HTTP connection timeout */
     String ES_HTTP_TIMEOUT = "es.http.timeout";
     String ES_HTTP_TIMEOUT_DEFAULT = "1m";
@@ -69,6 +114,23 @@ public interface ConfigurationOptions {
     String ES_HTTP_RETRIES = "es.http.retries";
     String ES_HTTP_RETRIES_DEFAULT = "3";
 
+    /** HTTP compression (requires http.compression to be enabled in Elasticsearch) */
+    String ES_HTTP_COMPRESSION = "es.http.compression";
+    String ES_HTTP_COMPRESSION_DEFAULT = "false";
+
+    /** HTTP connection pooling (shared across the JVM) */
+    String ES_HTTP_POOL = "es.http.pool";
+    String ES_HTTP_POOL_DEFAULT = "false";
+
+    String ES_HTTP_POOL_MAX_PER_HOST = "es.http.pool.max.per.host";
+    String ES_HTTP_POOL_MAX_PER_HOST_DEFAULT = "10";
+
+    String ES_HTTP_POOL_MAX_TOTAL = "es.http.pool.max.total";
+    String ES_HTTP_POOL_MAX_TOTAL_DEFAULT = "100";
+
+    String ES_HTTP_POOL_IDLE_TIMEOUT = "es.http.pool.idle.timeout";
+    String ES_HTTP_POOL_IDLE_TIMEOUT_DEFAULT = "1m";
+
     /** Scroll keep-alive */
     String ES_SCROLL_KEEPALIVE = "es.scroll.keepalive";
     String ES_SCROLL_KEEPALIVE_DEFAULT = "5m";
@@ -77,6 +139,15 @@ public interface ConfigurationOptions {
     String ES_SCROLL_SIZE = "es.scroll.size";
     String ES_SCROLL_SIZE_DEFAULT = "50";
 
+    /** Scroll prefetch - number of pages fetched in the background (0 disables prefetching) */
+    String ES_SCROLL_PREFETCH = "es.scroll.prefetch";
+    String ES_SCROLL_PREFETCH_DEFAULT = "0";
+
+    /** Input splits - shards are sliced (by range) on the given field so that each split reads at most the given number of docs */
+    String ES_INPUT_SPLIT_FIELD = "es.input.split.field";
+    String ES_INPUT_SPLIT_SIZE = "es.input.split.size";
+    String ES_INPUT_SPLIT_SIZE_DEFAULT = "100000";
+
     /** Scroll fields */
     String ES_SCROLL_FIELDS = "es.scroll.fields";
 
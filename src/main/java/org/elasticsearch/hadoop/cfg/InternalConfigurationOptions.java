@@ -22,5 +22,14 @@ public interface InternalConfigurationOptions extends ConfigurationOptions {
 
     String INTERNAL_ES_TARGET_RESOURCE = "es.internal.mr.target.resource";
     String INTERNAL_ES_TARGET_FIELDS = "es.internal.mr.target.fields";
+    // fields (paths) read from _source - the rest are skipped while parsing
+    String INTERNAL_ES_TARGET_PROJECTION = "es.internal.mr.target.projection";
+    // filter (JSON) pushed down by the integration (such as Hive) and applied on top of the query
+    String INTERNAL_ES_QUERY_FILTER = "es.internal.mr.query.filter";
     String INTERNAL_ES_HOSTS = "es.internal.hosts";
+    // number of (task) instances writing concurrently and the index of the current one
+    String INTERNAL_ES_WRITE_INSTANCES = "es.internal.write.instances";
+    String INTERNAL_ES_WRITE_INSTANCE = "es.internal.write.instance";
+    // cluster metadata resolved on the client side (JSON)
+    String INTERNAL_ES_METADATA = "es.internal.metadata";
 }
@@ -55,6 +55,14 @@ public abstract class Settings implements InternalConfigurationOptions {
         return Booleans.parseBoolean(getProperty(ES_NODES_DISCOVERY, ES_NODES_DISCOVERY_DEFAULT));
     }
 
+    public long getMetadataTtl() {
+        return TimeValue.parseTimeValue(getProperty(ES_METADATA_TTL, ES_METADATA_TTL_DEFAULT)).getMillis();
+    }
+
+    public long getNodesCooldown() {
+        return TimeValue.parseTimeValue(getProperty(ES_NODES_COOLDOWN, ES_NODES_COOLDOWN_DEFAULT)).getMillis();
+    }
+
     public long getHttpTimeout() {
         return TimeValue.parseTimeValue(getProperty(ES_HTTP_TIMEOUT, ES_HTTP_TIMEOUT_DEFAULT)).getMillis();
     }
@@ -63,10 +71,42 @@ public abstract class Settings implements InternalConfigurationOptions {
         return Integer.valueOf(getProperty(ES_HTTP_RETRIES, ES_HTTP_RETRIES_DEFAULT));
     }
 
+    public boolean getHttpCompression() {
+        return Booleans.parseBoolean(getProperty(ES_HTTP_COMPRESSION, ES_HTTP_COMPRESSION_DEFAULT));
+    }
+
+    public boolean getHttpPool() {
+        return Booleans.parseBoolean(getProperty(ES_HTTP_POOL, ES_HTTP_POOL_DEFAULT));
+    }
+
+    public int getHttpPoolMaxPerHost() {
+        return Integer.parseInt(getProperty(ES_HTTP_POOL_MAX_PER_HOST, ES_HTTP_POOL_MAX_PER_HOST_DEFAULT));
+    }
+
+    public int getHttpPoolMaxTotal() {
+        return Integer.parseInt(getProperty(ES_HTTP_POOL_MAX_TOTAL, ES_HTTP_POOL_MAX_TOTAL_DEFAULT));
+    }
+
+    public long getHttpPoolIdleTimeout() {
+        return TimeValue.parseTimeValue(getProperty(ES_HTTP_POOL_IDLE_TIMEOUT, ES_HTTP_POOL_IDLE_TIMEOUT_DEFAULT)).getMillis();
+    }
+
     public int getBatchSizeInBytes() {
         return ByteSizeValue.parseBytesSizeValue(getProperty(ES_BATCH_SIZE_BYTES, ES_BATCH_SIZE_BYTES_DEFAULT)).bytesAsInt();
     }
 
+    public boolean getBatchSizeAdaptive() {
+        return Booleans.parseBoolean(getProperty(ES_BATCH_SIZE_ADAPTIVE, ES_BATCH_SIZE_ADAPTIVE_DEFAULT));
+    }
+
+    public int getBatchSizeAdaptiveMin() {
+        return ByteSizeValue.parseBytesSizeValue(getProperty(ES_BATCH_SIZE_ADAPTIVE_MIN, ES_BATCH_SIZE_ADAPTIVE_MIN_DEFAULT)).bytesAsInt();
+    }
+
+    public long getBatchSizeAdaptiveLatency() {
+        return TimeValue.parseTimeValue(getProperty(ES_BATCH_SIZE_ADAPTIVE_LATENCY, ES_BATCH_SIZE_ADAPTIVE_LATENCY_DEFAULT)).getMillis();
+    }
+
     public int getBatchSizeInEntries() {
         return Integer.valueOf(getProperty(ES_BATCH_SIZE_ENTRIES, ES_BATCH_SIZE_ENTRIES_DEFAULT));
     }
@@ -83,6 +123,42 @@ public abstract class Settings implements InternalConfigurationOptions {
         return getProperty(ES_BATCH_WRITE_RETRY_POLICY, ES_BATCH_WRITE_RETRY_POLICY_DEFAULT);
     }
 
+    public int getBatchWriteRetryBreakerFailures() {
+        return Integer.parseInt(getProperty(ES_BATCH_WRITE_RETRY_BREAKER_FAILURES, ES_BATCH_WRITE_RETRY_BREAKER_FAILURES_DEFAULT));
+    }
+
+    public long getBatchWriteRetryBreakerCooldown() {
+        return TimeValue.parseTimeValue(getProperty(ES_BATCH_WRITE_RETRY_BREAKER_COOLDOWN, ES_BATCH_WRITE_RETRY_BREAKER_COOLDOWN_DEFAULT)).getMillis();
+    }
+
+    public boolean getBatchWriteShardRouting() {
+        return Booleans.parseBoolean(getProperty(ES_BATCH_WRITE_SHARD_ROUTING, ES_BATCH_WRITE_SHARD_ROUTING_DEFAULT));
+    }
+
+    public long getBatchWriteThrottleDocs() {
+        return Long.parseLong(getProperty(ES_BATCH_WRITE_THROTTLE_DOCS, ES_BATCH_WRITE_THROTTLE_DOCS_DEFAULT));
+    }
+
+    public long getBatchWriteThrottleBytes() {
+        return ByteSizeValue.parseBytesSizeValue(getProperty(ES_BATCH_WRITE_THROTTLE_BYTES, ES_BATCH_WRITE_THROTTLE_BYTES_DEFAULT)).bytes();
+    }
+
+    public int getWriteInstances() {
+        return Integer.parseInt(getProperty(INTERNAL_ES_WRITE_INSTANCES, "1"));
+    }
+
+    public int getWriteInstance() {
+        return Integer.parseInt(getProperty(INTERNAL_ES_WRITE_INSTANCE, "0"));
+    }
+
+    public boolean getBatchWriteAsync() {
+        return Booleans.parseBoolean(getProperty(ES_BATCH_WRITE_ASYNC, ES_BATCH_WRITE_ASYNC_DEFAULT));
+    }
+
+    public int getBatchWriteAsyncInFlight() {
+        return Integer.parseInt(getProperty(ES_BATCH_WRITE_ASYNC_INFLIGHT, ES_BATCH_WRITE_ASYNC_INFLIGHT_DEFAULT));
+    }
+
     public boolean getBatchRefreshAfterWrite() {
         return Booleans.parseBoolean(getProperty(ES_BATCH_WRITE_REFRESH, ES_BATCH_WRITE_REFRESH_DEFAULT));
     }
@@ -95,6 +171,26 @@ public abstract class Settings implements InternalConfigurationOptions {
         return Long.valueOf(getProperty(ES_SCROLL_SIZE, ES_SCROLL_SIZE_DEFAULT));
     }
 
+    public int getScrollPrefetch() {
+        return Integer.valueOf(getProperty(ES_SCROLL_PREFETCH, ES_SCROLL_PREFETCH_DEFAULT));
+    }
+
+    public String getInputSplitField() {
+        return getProperty(ES_INPUT_SPLIT_FIELD);
+    }
+
+    public long getInputSplitSize() {
+        return Long.valueOf(getProperty(ES_INPUT_SPLIT_SIZE, ES_INPUT_SPLIT_SIZE_DEFAULT));
+    }
+
+    public String getScrollProjection() {
+        return getProperty(INTERNAL_ES_TARGET_PROJECTION);
+    }
+
+    public String getQueryFilter() {
+        return getProperty(INTERNAL_ES_QUERY_FILTER);
+    }
+
     public String getScrollFields() {
         String internalFields = getProperty(INTERNAL_ES_TARGET_FIELDS);
         return (StringUtils.hasText(internalFields) ? internalFields : getProperty(ES_SCROLL_FIELDS));
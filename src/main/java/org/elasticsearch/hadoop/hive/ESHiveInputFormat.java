@@ -18,9 +18,15 @@ package org.elasticsearch.hadoop.hive;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.FileInputFormat;
@@ -28,7 +34,11 @@ import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.Reporter;
+import org.elasticsearch.hadoop.cfg.InternalConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.cfg.SettingsManager;
 import org.elasticsearch.hadoop.mr.ESInputFormat;
+import org.elasticsearch.hadoop.util.StringUtils;
 
 /**
  * Hive specific InputFormat. Since Hive code base makes a lot of assumptions about the tables being actual files in HDFS (using instanceof checks without proper else) this class tries to 'fix' this by
@@ -55,8 +65,7 @@ public class ESHiveInputFormat extends ESInputFormat<Text, Map<Writable, Writabl
         }
 
         public long getLength() {
-            // TODO: can this be delegated?
-            return 1L;
+            return ((ShardInputSplit) delegate).getLength();
         }
 
         public String[] getLocations() throws IOException {
@@ -98,6 +107,31 @@ public class ESHiveInputFormat extends ESInputFormat<Text, Map<Writable, Writabl
 
     @Override
     public WritableShardRecordReader getRecordReader(InputSplit split, JobConf job, Reporter reporter) {
+        // read from _source only the columns needed by the query (or declared by the table)
+        Settings settings = SettingsManager.loadFrom(job);
+        FieldAlias alias = HiveUtils.alias(settings);
+        List<String> columns = StringUtils.tokenize(job.get(ColumnProjectionUtils.READ_COLUMN_NAMES_CONF_STR));
+        if (columns.isEmpty()) {
+            columns = StringUtils.tokenize(settings.getProperty(HiveConstants.COLUMNS));
+        }
+        if (!columns.isEmpty()) {
+            List<String> fields = new ArrayList<String>(columns.size());
+            for (String column : columns) {
+                fields.add(alias.toES(column));
+            }
+            settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_TARGET_PROJECTION, StringUtils.concatenate(fields, ","));
+        }
+
+        // filter the documents on the ES side based on the predicate pushed by Hive (see ESStorageHandler)
+        String predicate = job.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+        if (StringUtils.hasText(predicate)) {
+            ExprNodeDesc expr = Utilities.deserializeExpression(predicate, job);
+            String filter = HiveFilters.toFilter(expr, alias);
+            if (filter != null) {
+                settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_QUERY_FILTER, filter);
+            }
+        }
+
         return new WritableShardRecordReader(((ESHiveSplit) split).delegate, job, reporter);
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@
  */
 package org.elasticsearch.hadoop.hive;
 
+import java.io.IOException;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -22,15 +23,19 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.metastore.HiveMetaHook;
 import org.apache.hadoop.hive.ql.metadata.DefaultStorageHandler;
+import org.apache.hadoop.hive.ql.metadata.HiveStoragePredicateHandler;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
 import org.apache.hadoop.hive.ql.plan.TableDesc;
 import org.apache.hadoop.hive.serde2.SerDe;
 import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.OutputFormat;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.cfg.SettingsManager;
 import org.elasticsearch.hadoop.mr.ESOutputFormat;
 import org.elasticsearch.hadoop.mr.HadoopCfgUtils;
 import org.elasticsearch.hadoop.rest.InitializationUtils;
+import org.elasticsearch.hadoop.rest.MetadataCache;
 import org.elasticsearch.hadoop.serialization.SerializationUtils;
 import org.elasticsearch.hadoop.util.Assert;
 
@@ -43,7 +48,7 @@ import static org.elasticsearch.hadoop.hive.HiveConstants.*;
  * or passed to {@link #ESStorageHandler} through Hive <tt>TBLPROPERTIES</tt>
  */
 @SuppressWarnings({ "deprecation", "rawtypes" })
-public class ESStorageHandler extends DefaultStorageHandler {
+public class ESStorageHandler extends DefaultStorageHandler implements HiveStoragePredicateHandler {
 
     private static Log log = LogFactory.getLog(ESStorageHandler.class);
 
@@ -75,10 +80,16 @@ public class ESStorageHandler extends DefaultStorageHandler {
 
     @Override
     public void configureOutputJobProperties(TableDesc tableDesc, Map<String, String> jobProperties) {
-        init(tableDesc);
+        Settings settings = init(tableDesc);
+        // resolve the cluster metadata once for all tasks
+        try {
+            MetadataCache.cacheForWriting(settings, log);
+        } catch (IOException ex) {
+            log.warn("Cannot resolve cluster metadata upfront; tasks will look it up themselves", ex);
+        }
     }
 
-    private void init(TableDesc tableDesc) {
+    private Settings init(TableDesc tableDesc) {
         Configuration cfg = getConf();
         Settings settings = SettingsManager.loadFrom(cfg).merge(tableDesc.getProperties()).clean();
 
@@ -98,6 +109,21 @@ public class ESStorageHandler extends DefaultStorageHandler {
 
         Assert.hasText(tableDesc.getProperties().getProperty(TABLE_LOCATION), String.format(
                 "no table location [%s] declared by Hive resulting in abnormal execution;", TABLE_LOCATION));
+        return settings;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public DecomposedPredicate decomposePredicate(JobConf jobConf, org.apache.hadoop.hive.serde2.Deserializer deserializer, ExprNodeDesc predicate) {
+        // aliases are irrelevant here - only check whether (part of) the predicate can be translated
+        if (HiveFilters.toFilter(predicate, new FieldAlias()) == null) {
+            return null;
+        }
+        // the ES filter might match more documents than the predicate (see HiveFilters) so Hive still evaluates all of it
+        DecomposedPredicate decomposed = new DecomposedPredicate();
+        decomposed.pushedPredicate = predicate;
+        decomposed.residualPredicate = predicate;
+        return decomposed;
     }
 
     @Override
@@ -22,29 +22,29 @@ import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.serialization.ConstantFieldExtractor;
 import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.BytesArray;
 import org.elasticsearch.hadoop.util.StringUtils;
 
 public class HiveFieldExtractor extends ConstantFieldExtractor {
 
     private String fieldName;
 
+    // struct field resolved against the last inspector (which is the same across rows)
+    private ObjectInspector inspector;
+    private StructField field;
+
     @Override
     protected String extractField(Object target) {
         if (target instanceof HiveType) {
             HiveType type = (HiveType) target;
-            ObjectInspector inspector = type.getObjectInspector();
-            if (inspector instanceof StructObjectInspector) {
-                StructObjectInspector soi = (StructObjectInspector) inspector;
-                StructField field = soi.getStructFieldRef(fieldName);
-                ObjectInspector foi = field.getFieldObjectInspector();
-                Assert.isTrue(foi.getCategory() == ObjectInspector.Category.PRIMITIVE,
-                        String.format("Field [%s] needs to be a primitive; found [%s]", fieldName, foi.getTypeName()));
-
+            StructField field = structField(type.getObjectInspector());
+            if (field != null) {
                 // expecting a writeable - simply do a toString
-                Object data = soi.getStructFieldData(type.getObject(), field);
+                Object data = ((StructObjectInspector) inspector).getStructFieldData(type.getObject(), field);
                 if (data == null || data instanceof NullWritable) {
                     return StringUtils.EMPTY;
                 }
@@ -55,11 +55,50 @@ public class HiveFieldExtractor extends ConstantFieldExtractor {
         return null;
     }
 
+    @Override
+    protected boolean extractField(Object target, BytesArray to) {
+        if (target instanceof HiveType) {
+            HiveType type = (HiveType) target;
+            StructField field = structField(type.getObjectInspector());
+            if (field != null) {
+                Object data = ((StructObjectInspector) inspector).getStructFieldData(type.getObject(), field);
+                to.reset();
+                if (data instanceof Text) {
+                    Text text = (Text) data;
+                    to.add(text.getBytes(), 0, text.getLength());
+                }
+                else if (data != null && !(data instanceof NullWritable)) {
+                    to.bytes(data.toString());
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private StructField structField(ObjectInspector oi) {
+        if (oi != inspector) {
+            StructField resolved = null;
+            if (oi instanceof StructObjectInspector) {
+                resolved = ((StructObjectInspector) oi).getStructFieldRef(fieldName);
+                ObjectInspector foi = resolved.getFieldObjectInspector();
+                Assert.isTrue(foi.getCategory() == ObjectInspector.Category.PRIMITIVE,
+                        String.format("Field [%s] needs to be a primitive; found [%s]", fieldName, foi.getTypeName()));
+            }
+            field = resolved;
+            inspector = oi;
+        }
+        return field;
+    }
+
     @Override
     public void setSettings(Settings settings) {
         super.setSettings(settings);
         Map<String, String> columnNames = HiveUtils.columnMap(settings);
         // replace column name with _colX (which is what Hive uses during serialization)
         fieldName = columnNames.get(getFieldName().toLowerCase(Locale.ENGLISH));
+        inspector = null;
+        field = null;
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.hive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBetween;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFIn;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPAnd;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPNotNull;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPNull;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPOr;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.elasticsearch.hadoop.serialization.SerializationException;
+
+/**
+ * Translates (pushed down) Hive predicates into Elasticsearch filters.
+ * <p/>
+ * The filters are allowed to match more documents than the predicate (they are never stricter) since Hive evaluates the
+ * predicate again on the returned rows: unsupported expressions inside <code>AND</code> are simply dropped while
+ * strings are matched as phrases (as the fields might be analyzed).
+ */
+abstract class HiveFilters {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Returns the filter (as JSON) matching (at least) the documents satisfying the given predicate or null if the predicate
+     * cannot be translated.
+     *
+     * @param predicate Hive predicate
+     * @param alias Hive to Elasticsearch field names
+     * @return filter as JSON or null
+     */
+    static String toFilter(ExprNodeDesc predicate, FieldAlias alias) {
+        Object filter = translate(predicate, alias);
+        if (filter == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(filter);
+        } catch (IOException ex) {
+            throw new SerializationException("Cannot serialize filter " + filter, ex);
+        }
+    }
+
+    private static Object translate(ExprNodeDesc expr, FieldAlias alias) {
+        if (!(expr instanceof ExprNodeGenericFuncDesc)) {
+            return null;
+        }
+
+        GenericUDF udf = ((ExprNodeGenericFuncDesc) expr).getGenericUDF();
+        List<ExprNodeDesc> children = expr.getChildren();
+
+        if (udf instanceof GenericUDFOPAnd) {
+            // dropping unsupported conditions only widens the filter
+            List<Object> filters = new ArrayList<Object>(children.size());
+            for (ExprNodeDesc child : children) {
+                Object filter = translate(child, alias);
+                if (filter != null) {
+                    filters.add(filter);
+                }
+            }
+            return (filters.isEmpty() ? null : (filters.size() == 1 ? filters.get(0) : map("and", filters)));
+        }
+
+        if (udf instanceof GenericUDFOPOr) {
+            // all branches are needed
+            List<Object> filters = new ArrayList<Object>(children.size());
+            for (ExprNodeDesc child : children) {
+                Object filter = translate(child, alias);
+                if (filter == null) {
+                    return null;
+                }
+                filters.add(filter);
+            }
+            return map("or", filters);
+        }
+
+        if (udf instanceof GenericUDFOPNull || udf instanceof GenericUDFOPNotNull) {
+            String field = field(children.get(0), alias);
+            if (field == null) {
+                return null;
+            }
+            return map((udf instanceof GenericUDFOPNull ? "missing" : "exists"), map("field", field));
+        }
+
+        if (udf instanceof GenericUDFIn) {
+            String field = field(children.get(0), alias);
+            if (field == null) {
+                return null;
+            }
+            List<Object> filters = new ArrayList<Object>(children.size() - 1);
+            for (ExprNodeDesc child : children.subList(1, children.size())) {
+                Object filter = equal(field, constant(child));
+                if (filter == null) {
+                    return null;
+                }
+                filters.add(filter);
+            }
+            return (filters.size() == 1 ? filters.get(0) : map("or", filters));
+        }
+
+        if (udf instanceof GenericUDFBetween) {
+            // [invert, column, low, high]
+            if (!Boolean.FALSE.equals(constant(children.get(0)))) {
+                return null;
+            }
+            String field = field(children.get(1), alias);
+            Object low = constant(children.get(2));
+            Object high = constant(children.get(3));
+            if (field == null || !(low instanceof Number) || !(high instanceof Number)) {
+                return null;
+            }
+            Map<String, Object> range = new LinkedHashMap<String, Object>();
+            range.put("gte", low);
+            range.put("lte", high);
+            return map("range", map(field, range));
+        }
+
+        if (children.size() != 2) {
+            return null;
+        }
+
+        // comparison - column on either side
+        boolean flip = false;
+        String field = field(children.get(0), alias);
+        Object value = constant(children.get(1));
+        if (field == null) {
+            flip = true;
+            field = field(children.get(1), alias);
+            value = constant(children.get(0));
+        }
+        if (field == null || value == null) {
+            return null;
+        }
+
+        if (udf instanceof GenericUDFOPEqual) {
+            return equal(field, value);
+        }
+
+        String operator = null;
+        if (udf instanceof GenericUDFOPLessThan) {
+            operator = (flip ? "gt" : "lt");
+        }
+        else if (udf instanceof GenericUDFOPEqualOrLessThan) {
+            operator = (flip ? "gte" : "lte");
+        }
+        else if (udf instanceof GenericUDFOPGreaterThan) {
+            operator = (flip ? "lt" : "gt");
+        }
+        else if (udf instanceof GenericUDFOPEqualOrGreaterThan) {
+            operator = (flip ? "lte" : "gte");
+        }
+
+        // string ranges depend on the field analysis - numbers only
+        if (operator == null || !(value instanceof Number)) {
+            return null;
+        }
+        return map("range", map(field, map(operator, value)));
+    }
+
+    private static Object equal(String field, Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return map("term", map(field, value));
+        }
+        if (value instanceof String && ((String) value).length() > 0) {
+            // the field might be analyzed - a phrase matches (at least) the exact value
+            Map<String, Object> match = new LinkedHashMap<String, Object>();
+            match.put("query", value);
+            match.put("type", "phrase");
+            // value made only of stop words
+            match.put("zero_terms_query", "all");
+            return map("query", map("match", map(field, match)));
+        }
+        return null;
+    }
+
+    private static String field(ExprNodeDesc expr, FieldAlias alias) {
+        if (expr instanceof ExprNodeColumnDesc) {
+            ExprNodeColumnDesc column = (ExprNodeColumnDesc) expr;
+            if (!column.getIsPartitionColOrVirtualCol()) {
+                return alias.toES(column.getColumn());
+            }
+        }
+        return null;
+    }
+
+    private static Object constant(ExprNodeDesc expr) {
+        if (expr instanceof ExprNodeConstantDesc) {
+            Object value = ((ExprNodeConstantDesc) expr).getValue();
+            if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long
+                    || value instanceof Float || value instanceof Double || value instanceof Boolean || value instanceof String) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> map(String key, Object value) {
+        return Collections.singletonMap(key, value);
+    }
+}
@@ -24,8 +24,18 @@ import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.BooleanObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ByteObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.FloatObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ShortObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.serialization.FieldName;
 import org.elasticsearch.hadoop.serialization.Generator;
 import org.elasticsearch.hadoop.serialization.SettingsAware;
 import org.elasticsearch.hadoop.serialization.ValueWriter;
@@ -33,6 +43,9 @@ import org.elasticsearch.hadoop.serialization.ValueWriter;
 /**
  * Main value writer for hive. However since Hive expects a Writable type to be passed to the record reader,
  * the raw JSON data needs to be wrapped (and unwrapped by {@link HiveBytesArrayWritable}).
+ * <p/>
+ * As all rows of a table share the same {@link ObjectInspector}, the inspector tree is compiled (once) into a tree of
+ * writers with the field names aliased and encoded upfront and with direct accessors for the primitive columns.
  */
 public class HiveValueWriter implements SettingsAware, ValueWriter<HiveType> {
 
@@ -40,6 +53,10 @@ public class HiveValueWriter implements SettingsAware, ValueWriter<HiveType> {
     private final ValueWriter<Writable> writableWriter;
     private FieldAlias alias;
 
+    // writer compiled for the last inspector seen
+    private ObjectInspector compiledInspector;
+    private InspectorWriter compiledWriter;
+
     public HiveValueWriter() {
         this.writeUnknownTypes = false;
         this.writableWriter = new HiveWritableValueWriter(false);
@@ -48,85 +65,228 @@ public class HiveValueWriter implements SettingsAware, ValueWriter<HiveType> {
 
     @Override
     public boolean write(HiveType type, Generator generator) {
-        boolean result = write(type.getObject(), type.getObjectInspector(), generator);
-        return result;
-    }
-
-    private boolean write(Object data, ObjectInspector oi, Generator generator) {
-        if (data == null) {
-            generator.writeNull();
-            return true;
+        ObjectInspector oi = type.getObjectInspector();
+        if (oi != compiledInspector) {
+            compiledWriter = compile(oi);
+            compiledInspector = oi;
         }
+        return compiledWriter.write(type.getObject(), generator);
+    }
 
+    private InspectorWriter compile(ObjectInspector oi) {
         switch (oi.getCategory()) {
         case PRIMITIVE:
-            Writable writable = (Writable) ((PrimitiveObjectInspector) oi).getPrimitiveWritableObject(data);
+            return compilePrimitive((PrimitiveObjectInspector) oi);
+
+        case LIST: // or ARRAY
+            return new ListWriter((ListObjectInspector) oi);
+
+        case MAP:
+            return new MapWriter((MapObjectInspector) oi);
+
+        case STRUCT:
+            return new StructWriter((StructObjectInspector) oi);
+
+        case UNION:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    //UnionObjectInspector uoi = (UnionObjectInspector) oi;
+                    throw new UnsupportedOperationException("union not yet supported");
+                }
+            };
+
+        default:
+            return new UnknownWriter(oi);
+        }
+    }
+
+    private InspectorWriter compilePrimitive(final PrimitiveObjectInspector oi) {
+        switch (oi.getPrimitiveCategory()) {
+        case BOOLEAN:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeBoolean(((BooleanObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case BYTE:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((ByteObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case SHORT:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((ShortObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case INT:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((IntObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case LONG:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((LongObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case FLOAT:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((FloatObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case DOUBLE:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    generator.writeNumber(((DoubleObjectInspector) oi).get(data));
+                    return true;
+                }
+            };
+        case STRING:
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    Text text = ((StringObjectInspector) oi).getPrimitiveWritableObject(data);
+                    generator.writeUTF8String(text.getBytes(), 0, text.getLength());
+                    return true;
+                }
+            };
+        default:
+            // less common types (dates, decimals, binary, etc...) go through their Writable
+            return new InspectorWriter() {
+                @Override
+                boolean writeValue(Object data, Generator generator) {
+                    return writableWriter.write((Writable) oi.getPrimitiveWritableObject(data), generator);
+                }
+            };
+        }
+    }
+
+    private abstract static class InspectorWriter {
 
-            if (!writableWriter.write(writable, generator)) {
-                return false;
+        boolean write(Object data, Generator generator) {
+            if (data == null) {
+                generator.writeNull();
+                return true;
             }
-            break;
+            return writeValue(data, generator);
+        }
 
-        case LIST: // or ARRAY
-            ListObjectInspector loi = (ListObjectInspector) oi;
-            generator.writeBeginArray();
+        abstract boolean writeValue(Object data, Generator generator);
+    }
 
-            for (int i = 0; i < loi.getListLength(data); i++) {
-                if (!write(loi.getListElement(data, i), loi.getListElementObjectInspector(), generator)) {
+    private class ListWriter extends InspectorWriter {
+        private final ListObjectInspector loi;
+        private final InspectorWriter element;
+
+        ListWriter(ListObjectInspector loi) {
+            this.loi = loi;
+            this.element = compile(loi.getListElementObjectInspector());
+        }
+
+        @Override
+        boolean writeValue(Object data, Generator generator) {
+            generator.writeBeginArray();
+            for (int i = 0, length = loi.getListLength(data); i < length; i++) {
+                if (!element.write(loi.getListElement(data, i), generator)) {
                     return false;
                 }
             }
             generator.writeEndArray();
+            return true;
+        }
+    }
 
-            break;
+    private class MapWriter extends InspectorWriter {
+        private final MapObjectInspector moi;
+        private final InspectorWriter value;
 
-        case MAP:
-            MapObjectInspector moi = (MapObjectInspector) oi;
+        MapWriter(MapObjectInspector moi) {
+            this.moi = moi;
+            this.value = compile(moi.getMapValueObjectInspector());
+        }
 
+        @Override
+        boolean writeValue(Object data, Generator generator) {
             generator.writeBeginObject();
             for (Map.Entry<?, ?> entry : moi.getMap(data).entrySet()) {
                 //write(entry.getKey(), mapType.getMapKeyTypeInfo(), generator);
                 // TODO: handle non-strings
                 generator.writeFieldName(alias.toES(entry.getKey().toString()));
-                if (!write(entry.getValue(), moi.getMapValueObjectInspector(), generator)) {
+                if (!value.write(entry.getValue(), generator)) {
                     return false;
                 }
             }
             generator.writeEndObject();
+            return true;
+        }
+    }
 
-            break;
-
-        case STRUCT:
-            StructObjectInspector soi = (StructObjectInspector) oi;
+    private class StructWriter extends InspectorWriter {
+        private final StructObjectInspector soi;
+        private final StructField[] refs;
+        private final FieldName[] names;
+        private final InspectorWriter[] fields;
 
-            List<? extends StructField> refs = soi.getAllStructFieldRefs();
+        StructWriter(StructObjectInspector soi) {
+            this.soi = soi;
+            List<? extends StructField> fieldRefs = soi.getAllStructFieldRefs();
+            refs = fieldRefs.toArray(new StructField[fieldRefs.size()]);
+            names = new FieldName[refs.length];
+            fields = new InspectorWriter[refs.length];
+            for (int i = 0; i < refs.length; i++) {
+                names[i] = new FieldName(alias.toES(refs[i].getFieldName()));
+                fields[i] = compile(refs[i].getFieldObjectInspector());
+            }
+        }
 
+        @Override
+        boolean writeValue(Object data, Generator generator) {
             generator.writeBeginObject();
-            for (StructField structField : refs) {
-                generator.writeFieldName(alias.toES(structField.getFieldName()));
-                if (!write(soi.getStructFieldData(data, structField), structField.getFieldObjectInspector(), generator)) {
+            for (int i = 0; i < refs.length; i++) {
+                generator.writeFieldName(names[i]);
+                if (!fields[i].write(soi.getStructFieldData(data, refs[i]), generator)) {
                     return false;
                 }
             }
             generator.writeEndObject();
-            break;
+            return true;
+        }
+    }
 
-        case UNION:
-            //UnionObjectInspector uoi = (UnionObjectInspector) oi;
-            throw new UnsupportedOperationException("union not yet supported");//break;
+    private class UnknownWriter extends InspectorWriter {
+        private final ObjectInspector oi;
 
+        UnknownWriter(ObjectInspector oi) {
+            this.oi = oi;
+        }
 
-        default:
+        @Override
+        boolean writeValue(Object data, Generator generator) {
             if (writeUnknownTypes) {
                 return handleUnknown(data, oi, generator);
             }
             return false;
         }
-
-        return true;
     }
 
-
     protected boolean handleUnknown(Object value, ObjectInspector oi, Generator generator) {
         return false;
     }
@@ -134,5 +294,8 @@ public class HiveValueWriter implements SettingsAware, ValueWriter<HiveType> {
     @Override
     public void setSettings(Settings settings) {
         alias = HiveUtils.alias(settings);
+        // the field names need to be aliased again
+        compiledInspector = null;
+        compiledWriter = null;
     }
-}
\ No newline at end of file
+}
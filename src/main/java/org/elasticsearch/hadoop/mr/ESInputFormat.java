@@ -16,9 +16,14 @@
 package org.elasticsearch.hadoop.mr;
 
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,9 +51,12 @@ import org.elasticsearch.hadoop.rest.dto.Node;
 import org.elasticsearch.hadoop.rest.dto.Shard;
 import org.elasticsearch.hadoop.rest.dto.mapping.Field;
 import org.elasticsearch.hadoop.serialization.ScrollReader;
+import org.elasticsearch.hadoop.serialization.SerializationException;
 import org.elasticsearch.hadoop.serialization.SerializationUtils;
 import org.elasticsearch.hadoop.serialization.ValueReader;
-import org.elasticsearch.hadoop.util.IOUtils;
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.FastByteArrayInputStream;
+import org.elasticsearch.hadoop.util.FastByteArrayOutputStream;
 import org.elasticsearch.hadoop.util.ObjectUtils;
 import org.elasticsearch.hadoop.util.StringUtils;
 
@@ -70,23 +78,35 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
         private String nodeId;
         private String nodeName;
         private String shardId;
-        private String mapping;
+        // binary encoded mapping (see Field#write)
+        private byte[] mapping;
+        private String filter;
+        // estimated number of docs and size (in bytes)
+        private long docs;
+        private long size;
 
         public ShardInputSplit() {}
 
-        public ShardInputSplit(String nodeIp, int httpPort, String nodeId, String nodeName, Integer shard, String mapping) {
+        public ShardInputSplit(String nodeIp, int httpPort, String nodeId, String nodeName, Integer shard, byte[] mapping) {
+            this(nodeIp, httpPort, nodeId, nodeName, shard, mapping, null, 0, 0);
+        }
+
+        public ShardInputSplit(String nodeIp, int httpPort, String nodeId, String nodeName, Integer shard, byte[] mapping, String filter, long docs, long size) {
             this.nodeIp = nodeIp;
             this.httpPort = httpPort;
             this.nodeId = nodeId;
             this.nodeName = nodeName;
             this.shardId = shard.toString();
             this.mapping = mapping;
+            this.filter = filter;
+            this.docs = docs;
+            this.size = size;
         }
 
         @Override
         public long getLength() {
-            // TODO: can this be computed easily?
-            return 1l;
+            // no stats available
+            return (size > 0 ? size : 1l);
         }
 
         @Override
@@ -102,7 +122,12 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
             out.writeUTF(nodeId);
             out.writeUTF(nodeName);
             out.writeUTF(shardId);
-            out.writeUTF(mapping);
+            byte[] data = (mapping != null ? mapping : BytesArray.EMPTY);
+            out.writeInt(data.length);
+            out.write(data);
+            out.writeUTF(filter != null ? filter : StringUtils.EMPTY);
+            out.writeLong(docs);
+            out.writeLong(size);
         }
 
         @Override
@@ -112,7 +137,11 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
             nodeId = in.readUTF();
             nodeName = in.readUTF();
             shardId = in.readUTF();
-            mapping = in.readUTF();
+            mapping = new byte[in.readInt()];
+            in.readFully(mapping);
+            filter = in.readUTF();
+            docs = in.readLong();
+            size = in.readLong();
         }
 
         @Override
@@ -120,7 +149,14 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
             StringBuilder builder = new StringBuilder();
             builder.append("ShardInputSplit [node=[").append(nodeId).append("/").append(nodeName)
                         .append("|").append(nodeIp).append(":").append(httpPort)
-                        .append("],shard=").append(shardId).append("]");
+                        .append("],shard=").append(shardId);
+            if (StringUtils.hasText(filter)) {
+                builder.append(",slice=").append(filter);
+            }
+            if (size > 0) {
+                builder.append(",docs=").append(docs).append(",size=").append(size);
+            }
+            builder.append("]");
             return builder.toString();
         }
 
@@ -168,23 +204,24 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
             settings.cleanHosts().setHosts(esSplit.nodeIp).setPort(esSplit.httpPort);
 
             this.esSplit = esSplit;
+            // estimate (refined once the query executes)
+            this.size = esSplit.docs;
 
             // initialize mapping/ scroll reader
             SerializationUtils.setValueReaderIfNotSet(settings, WritableValueReader.class, log);
             ValueReader reader = ObjectUtils.instantiate(settings.getSerializerValueReaderClassName(), settings);
 
-            String mappingData = esSplit.mapping;
-
-            Field mapping = null;
+            Field mapping = decodeMapping(esSplit.mapping);
 
-            if (StringUtils.hasText(mappingData)) {
-                mapping = IOUtils.deserializeFromBase64(mappingData);
-            }
-            else {
+            if (mapping == null) {
                 log.warn(String.format("No mapping found for [%s] - either no index exists or the split configuration has been corrupted", esSplit));
             }
 
-            scrollReader = new ScrollReader(reader, mapping);
+            String fields = settings.getScrollFields();
+            // without fields, ES returns the _source in full - parse only the projected fields (if known)
+            List<String> projection = (StringUtils.hasText(fields) ? null : StringUtils.tokenize(settings.getScrollProjection()));
+
+            scrollReader = new ScrollReader(reader, mapping, projection);
 
             // initialize REST client
             client = new RestRepository(settings);
@@ -193,7 +230,10 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
                     .shard(esSplit.shardId)
                     .onlyNode(esSplit.nodeId);
 
-            String fields = settings.getScrollFields();
+            if (StringUtils.hasText(esSplit.filter)) {
+                queryBuilder.filter(esSplit.filter);
+            }
+
             if (StringUtils.hasText(fields)) {
                 queryBuilder.fields(fields);
             }
@@ -368,16 +408,17 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
         RestRepository client = new RestRepository(settings);
         Map<Shard, Node> targetShards = client.getTargetShards();
 
-        String savedMapping = null;
+        // encoded once and shared by all splits
+        byte[] savedMapping = null;
         if (!targetShards.isEmpty()) {
             Field mapping = client.getMapping();
-            //TODO: implement this more efficiently
-            savedMapping = IOUtils.serializeToBase64(mapping);
+            savedMapping = encodeMapping(mapping);
             log.info(String.format("Discovered mapping {%s} for [%s]", mapping, settings.getTargetResource()));
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Encoded mapping in [%d] bytes", savedMapping.length));
+            }
         }
 
-        client.close();
-
         if (settings.getIndexReadMissingAsEmpty() && targetShards.isEmpty()) {
             log.info(String.format("Index [%s] missing - treating it as empty", settings.getTargetResource()));
         }
@@ -386,18 +427,109 @@ public class ESInputFormat<K, V> extends InputFormat<K, V> implements org.apache
             log.trace("Creating splits for shards " + targetShards);
         }
 
-        ShardInputSplit[] splits = new ShardInputSplit[targetShards.size()];
+        List<ShardInputSplit> splits = new ArrayList<ShardInputSplit>(targetShards.size());
+
+        try {
+            Map<Shard, long[]> shardStats = shardStats(client, targetShards);
+
+            for (Entry<Shard, Node> entry : targetShards.entrySet()) {
+                Shard shard = entry.getKey();
+                Node node = entry.getValue();
+
+                long[] stats = shardStats.get(shard);
+                long docs = (stats != null ? stats[0] : 0);
+                long size = (stats != null ? stats[1] : 0);
 
-        int index = 0;
-        for (Entry<Shard, Node> entry : targetShards.entrySet()) {
-            Shard shard = entry.getKey();
-            Node node = entry.getValue();
-            splits[index++] =
-                        new ShardInputSplit(node.getIpAddress(), node.getHttpPort(), node.getId(), node.getName(), shard.getName(), savedMapping);
+                List<String> slices = sliceShard(client, settings, shard, node);
+                if (slices.isEmpty()) {
+                    splits.add(new ShardInputSplit(node.getIpAddress(), node.getHttpPort(), node.getId(), node.getName(), shard.getName(), savedMapping, null, docs, size));
+                }
+                else {
+                    // assume the docs are evenly distributed across slices
+                    int count = slices.size();
+                    for (String slice : slices) {
+                        splits.add(new ShardInputSplit(node.getIpAddress(), node.getHttpPort(), node.getId(), node.getName(), shard.getName(), savedMapping, slice, docs / count, size / count));
+                    }
+                }
+            }
+        } finally {
+            client.close();
         }
 
-        log.info(String.format("Created [%d] shard-splits", splits.length));
-        return splits;
+        // schedule the biggest splits first to minimize the tail
+        Collections.sort(splits, new Comparator<ShardInputSplit>() {
+            @Override
+            public int compare(ShardInputSplit o1, ShardInputSplit o2) {
+                long l1 = o1.getLength(), l2 = o2.getLength();
+                return (l1 < l2 ? 1 : (l1 == l2 ? 0 : -1));
+            }
+        });
+
+        log.info(String.format("Created [%d] shard-splits", splits.size()));
+        return splits.toArray(new ShardInputSplit[splits.size()]);
+    }
+
+    static byte[] encodeMapping(Field mapping) throws IOException {
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        mapping.write(out);
+        out.flush();
+        BytesArray data = bytes.bytes();
+        return Arrays.copyOf(data.bytes(), data.size());
+    }
+
+    // splits of the same job share the mapping so keep the last one decoded around (for JVM reuse)
+    private static volatile Object[] lastMapping;
+
+    static Field decodeMapping(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+
+        Object[] last = lastMapping;
+        if (last != null && Arrays.equals(data, (byte[]) last[0])) {
+            return (Field) last[1];
+        }
+
+        Field mapping;
+        try {
+            mapping = Field.read(new DataInputStream(new FastByteArrayInputStream(data)));
+        } catch (IOException ex) {
+            throw new SerializationException("cannot deserialize mapping", ex);
+        }
+        lastMapping = new Object[] { data, mapping };
+        return mapping;
+    }
+
+    private static Map<Shard, long[]> shardStats(RestRepository client, Map<Shard, Node> targetShards) {
+        if (targetShards.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return client.getShardStats(targetShards.keySet());
+        } catch (Exception ex) {
+            // stats are used only as hints
+            log.warn("Cannot retrieve shard statistics; split sizes are unknown", ex);
+            return Collections.emptyMap();
+        }
+    }
+
+    // slices the shard by range (if configured) based on the number of docs matching the query
+    private static List<String> sliceShard(RestRepository client, Settings settings, Shard shard, Node node) {
+        String field = settings.getInputSplitField();
+        if (!StringUtils.hasText(field)) {
+            return Collections.emptyList();
+        }
+
+        double[] stats = QueryBuilder.query(settings).shard(shard.getName().toString()).onlyNode(node.getId()).fieldStats(client, field);
+        long slices = (long) Math.ceil(stats[0] / Math.max(1, settings.getInputSplitSize()));
+        List<String> filters = QueryBuilder.rangeSlices(field, stats[1], stats[2], (int) Math.min(slices, Integer.MAX_VALUE));
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Shard [%s] on node [%s] matches [%d] docs; sliced into [%d] splits on field [%s]",
+                    shard.getName(), node.getId(), (long) stats[0], Math.max(1, filters.size()), field));
+        }
+        return filters;
     }
 
     @SuppressWarnings("unchecked")
@@ -38,6 +38,7 @@ import org.elasticsearch.hadoop.cfg.InternalConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.cfg.SettingsManager;
 import org.elasticsearch.hadoop.rest.InitializationUtils;
+import org.elasticsearch.hadoop.rest.MetadataCache;
 import org.elasticsearch.hadoop.rest.RestRepository;
 import org.elasticsearch.hadoop.rest.dto.Node;
 import org.elasticsearch.hadoop.rest.dto.Shard;
@@ -147,7 +148,7 @@ public class ESOutputFormat extends OutputFormat implements org.apache.hadoop.ma
         }
 
         protected void init() throws IOException {
-            //int instances = detectNumberOfInstances(cfg);
+            int instances = detectNumberOfInstances(cfg);
             int currentInstance = detectCurrentInstance(cfg);
 
             if (log.isTraceEnabled()) {
@@ -163,6 +164,9 @@ public class ESOutputFormat extends OutputFormat implements org.apache.hadoop.ma
             List<String> nodes = NodeUtils.nodes(settings);
             Collections.rotate(nodes, -currentInstance);
             settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_HOSTS, StringUtils.concatenate(nodes, ","));
+            // used for sharing the write budget (if any) across instances
+            settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_WRITE_INSTANCES, String.valueOf(instances));
+            settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_WRITE_INSTANCE, String.valueOf(currentInstance));
 
 
             client = new RestRepository(settings);
@@ -175,6 +179,15 @@ public class ESOutputFormat extends OutputFormat implements org.apache.hadoop.ma
                 }
             }
 
+            // documents are sent to the node of their primary shard by the repository itself
+            if (settings.getBatchWriteShardRouting()) {
+                uri = settings.getTargetHosts();
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("ESRecordWriter instance [%s] routing documents to their primary shards", currentInstance));
+                }
+                return;
+            }
+
             Map<Shard, Node> targetShards = client.getTargetPrimaryShards();
             client.close();
 
@@ -201,11 +214,24 @@ public class ESOutputFormat extends OutputFormat implements org.apache.hadoop.ma
         }
 
         private int detectCurrentInstance(Configuration conf) {
+            return detectTaskAttempt(conf).getTaskID().getId();
+        }
+
+        private int detectNumberOfInstances(Configuration conf) {
+            boolean isMap = detectTaskAttempt(conf).isMap();
+            String tasks = (isMap ? HadoopCfgUtils.getMapTasks(conf) : HadoopCfgUtils.getReduceTasks(conf));
+            try {
+                return (StringUtils.hasText(tasks) ? Math.max(1, Integer.parseInt(tasks.trim())) : 1);
+            } catch (NumberFormatException ex) {
+                return 1;
+            }
+        }
+
+        private TaskAttemptID detectTaskAttempt(Configuration conf) {
             TaskAttemptID attempt = TaskAttemptID.forName(HadoopCfgUtils.getTaskAttemptId(conf));
             Assert.notNull(attempt,
                     "Unable to determine task id - please report your distro/setting through the issue tracker");
-
-            return attempt.getTaskID().getId();
+            return attempt;
         }
 
         @Override
@@ -268,6 +294,8 @@ public class ESOutputFormat extends OutputFormat implements org.apache.hadoop.ma
 
         InitializationUtils.checkIdForOperation(settings);
         InitializationUtils.checkIndexExistence(settings, client);
+        // resolve the cluster metadata once for all tasks
+        MetadataCache.cacheForWriting(settings, log);
 
         if (HadoopCfgUtils.getReduceTasks(cfg) != null) {
             if (HadoopCfgUtils.getSpeculativeReduce(cfg)) {
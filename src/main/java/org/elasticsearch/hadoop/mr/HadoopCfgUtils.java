@@ -55,6 +55,10 @@ public abstract class HadoopCfgUtils {
         return get(cfg, "mapreduce.task.attempt.id", "mapred.task.id");
     }
 
+    public static String getMapTasks(Configuration cfg) {
+        return get(cfg, "mapreduce.job.maps", "mapred.map.tasks");
+    }
+
     public static String getReduceTasks(Configuration cfg) {
         return get(cfg, "mapreduce.job.reduces", "mapred.reduce.tasks");
     }
@@ -35,7 +35,9 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.OutputFormat;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.pig.Expression;
 import org.apache.pig.LoadFunc;
+import org.apache.pig.LoadMetadata;
 import org.apache.pig.LoadPushDown;
 import org.apache.pig.ResourceSchema;
 import org.apache.pig.ResourceStatistics;
@@ -49,14 +51,18 @@ import org.apache.pig.data.TupleFactory;
 import org.apache.pig.impl.logicalLayer.FrontendException;
 import org.apache.pig.impl.util.ObjectSerializer;
 import org.apache.pig.impl.util.UDFContext;
+import org.elasticsearch.hadoop.cfg.InternalConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.cfg.SettingsManager;
 import org.elasticsearch.hadoop.mr.ESOutputFormat;
 import org.elasticsearch.hadoop.rest.InitializationUtils;
+import org.elasticsearch.hadoop.rest.RestRepository;
+import org.elasticsearch.hadoop.serialization.FieldType;
 import org.elasticsearch.hadoop.serialization.SerializationUtils;
 import org.elasticsearch.hadoop.util.IOUtils;
 import org.elasticsearch.hadoop.util.ObjectUtils;
 import org.elasticsearch.hadoop.util.StringUtils;
+import org.elasticsearch.hadoop.util.unit.Booleans;
 
 /**
  * Pig storage for reading and writing data into an ElasticSearch index.
@@ -74,10 +80,11 @@ import org.elasticsearch.hadoop.util.StringUtils;
  * The ElasticSearch host/port can be specified through Hadoop properties (see package description)
  * or passed to the {@link #ESStorage(String...)} constructor.
  */
-public class ESStorage extends LoadFunc implements LoadPushDown, StoreFuncInterface, StoreMetadata {
+public class ESStorage extends LoadFunc implements LoadPushDown, LoadMetadata, StoreFuncInterface, StoreMetadata {
 
     private static final Log log = LogFactory.getLog(ESStorage.class);
     private static final String FIELDS = "es.internal.mr.target.fields";
+    private static final String FILTER_PUSHDOWN = "es.pig.filter.pushdown";
     private final boolean trace = log.isTraceEnabled();
 
     private Properties properties;
@@ -88,6 +95,8 @@ public class ESStorage extends LoadFunc implements LoadPushDown, StoreFuncInterf
     private RecordReader<String, Map<?, ?>> reader;
     private RecordWriter<Object, Object> writer;
     private PigTuple pigTuple;
+    private Map<String, FieldType> filterableFields;
+    private FieldAlias filterAlias;
 
     public ESStorage() {
         this(new String[0]);
@@ -217,6 +226,14 @@ public class ESStorage extends LoadFunc implements LoadPushDown, StoreFuncInterf
 
         Settings settings = SettingsManager.loadFrom(cfg);
 
+        String filter = getUDFProperties().getProperty(InternalConfigurationOptions.INTERNAL_ES_QUERY_FILTER);
+        if (filter != null) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Found pushed filter [%s] in UDF properties", filter));
+            }
+            cfg.set(InternalConfigurationOptions.INTERNAL_ES_QUERY_FILTER, filter);
+        }
+
         if (settings.getScrollFields() != null) {
             return;
         }
@@ -336,4 +353,54 @@ public class ESStorage extends LoadFunc implements LoadPushDown, StoreFuncInterf
         }
         return new RequiredFieldResponse(true);
     }
-}
\ No newline at end of file
+
+    //
+    // LoadMetadata
+    //
+    @Override
+    public ResourceSchema getSchema(String location, Job job) throws IOException {
+        // rely on the schema declared in the script
+        return null;
+    }
+
+    @Override
+    public ResourceStatistics getStatistics(String location, Job job) throws IOException {
+        return null;
+    }
+
+    @Override
+    public String[] getPartitionKeys(String location, Job job) throws IOException {
+        Settings settings = SettingsManager.loadFrom(job.getConfiguration()).merge(properties).setResource(location);
+        if (!Booleans.parseBoolean(settings.getProperty(FILTER_PUSHDOWN))) {
+            return null;
+        }
+
+        // Pig pushes (and removes from its plan) only the conditions over these fields
+        RestRepository repository = new RestRepository(settings);
+        try {
+            filterableFields = PigFilters.filterableFields(repository.getMapping());
+            filterAlias = PigUtils.load(settings);
+        } finally {
+            repository.close();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Fields eligible for filter push down %s", filterableFields.keySet()));
+        }
+        return (filterableFields.isEmpty() ? null : filterableFields.keySet().toArray(new String[filterableFields.size()]));
+    }
+
+    @Override
+    public void setPartitionFilter(Expression partitionFilter) throws IOException {
+        String filter = PigFilters.toFilter(partitionFilter, filterableFields, filterAlias);
+        // the condition is no longer evaluated by Pig so it cannot be skipped
+        if (filter == null) {
+            throw new IOException(String.format("Cannot translate filter [%s] to Elasticsearch; rewrite the condition or disable [%s]",
+                    partitionFilter, FILTER_PUSHDOWN));
+        }
+        getUDFProperties().setProperty(InternalConfigurationOptions.INTERNAL_ES_QUERY_FILTER, filter);
+        if (log.isTraceEnabled()) {
+            log.trace(String.format("Given filter push down; saving filter [%s]", filter));
+        }
+    }
+}
@@ -17,20 +17,64 @@ package org.elasticsearch.hadoop.pig;
 
 import org.apache.pig.ResourceSchema.ResourceFieldSchema;
 import org.apache.pig.backend.executionengine.ExecException;
+import org.apache.pig.data.DataByteArray;
 import org.apache.pig.data.DataType;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.serialization.ConstantFieldExtractor;
 import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.BytesArray;
 
 public class PigFieldExtractor extends ConstantFieldExtractor {
 
     private String fieldName;
 
+    // field position resolved against the last schema (which is the same across tuples)
+    private ResourceFieldSchema schema;
+    private int index = -1;
+
     @Override
     protected String extractField(Object target) {
+        Object value = fieldValue(target);
+        return (value != null ? value.toString() : null);
+    }
+
+    @Override
+    protected boolean extractField(Object target, BytesArray to) {
+        Object value = fieldValue(target);
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof DataByteArray) {
+            DataByteArray dba = (DataByteArray) value;
+            to.reset();
+            to.add(dba.get(), 0, dba.size());
+        }
+        else {
+            to.bytes(value.toString());
+        }
+        return true;
+    }
+
+    private Object fieldValue(Object target) {
         if (target instanceof PigTuple) {
             PigTuple pt = (PigTuple) target;
-            ResourceFieldSchema[] fields = pt.getSchema().getSchema().getFields();
+            int i = fieldIndex(pt.getSchema());
+            if (i >= 0) {
+                try {
+                    return pt.getTuple().get(i);
+                } catch (ExecException ex) {
+                    throw new IllegalStateException(String.format("Cannot retrieve field [%s]", fieldName), ex);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private int fieldIndex(ResourceFieldSchema rs) {
+        if (rs != schema) {
+            int resolved = -1;
+            ResourceFieldSchema[] fields = rs.getSchema().getFields();
 
             for (int i = 0; i < fields.length; i++) {
                 ResourceFieldSchema field = fields[i];
@@ -38,21 +82,21 @@ public class PigFieldExtractor extends ConstantFieldExtractor {
                     byte type = field.getType();
                     Assert.isTrue(DataType.isAtomic(type),
                             String.format("Unsupported data type [%s] for field [%s]; use only 'primitives'", DataType.findTypeName(type), fieldName));
-                    try {
-                        return pt.getTuple().get(i).toString();
-                    } catch (ExecException ex) {
-                        throw new IllegalStateException(String.format("Cannot retrieve field [%s]", fieldName), ex);
-                    }
+                    resolved = i;
+                    break;
                 }
             }
+            index = resolved;
+            schema = rs;
         }
-
-        return null;
+        return index;
     }
 
     @Override
     public void setSettings(Settings settings) {
         super.setSettings(settings);
         fieldName = getFieldName();
+        schema = null;
+        index = -1;
     }
 }
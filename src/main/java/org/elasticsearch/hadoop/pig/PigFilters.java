@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.pig;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.pig.Expression;
+import org.apache.pig.Expression.BinaryExpression;
+import org.apache.pig.Expression.Column;
+import org.apache.pig.Expression.Const;
+import org.apache.pig.Expression.OpType;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.elasticsearch.hadoop.rest.dto.mapping.Field;
+import org.elasticsearch.hadoop.serialization.FieldType;
+import org.elasticsearch.hadoop.serialization.SerializationException;
+
+/**
+ * Translates the filters pushed by Pig (through {@link org.apache.pig.LoadMetadata#setPartitionFilter(Expression)}) into Elasticsearch filters.
+ * <p/>
+ * Pig removes the pushed conditions from its plan hence the translation has to be exact. As such only the top-level numeric and
+ * boolean fields are exposed (as 'partition' keys) since comparing them through <code>term</code>/<code>range</code> filters yields the same
+ * results as in Pig (strings depend on the field analysis).
+ */
+abstract class PigFilters {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Returns the (top-level) fields that can be filtered exactly, with their type.
+     *
+     * @param mapping index mapping
+     * @return filterable fields
+     */
+    static Map<String, FieldType> filterableFields(Field mapping) {
+        Map<String, FieldType> fields = new LinkedHashMap<String, FieldType>();
+        if (mapping != null) {
+            for (Field field : mapping.properties()) {
+                switch (field.type()) {
+                case BOOLEAN:
+                case BYTE:
+                case SHORT:
+                case INTEGER:
+                case LONG:
+                case FLOAT:
+                case DOUBLE:
+                    fields.put(field.name(), field.type());
+                    break;
+                default:
+                    // ignore
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the filter (as JSON) equivalent to the given expression or null if the expression cannot be translated exactly.
+     *
+     * @param expression Pig expression
+     * @param fields filterable fields (see {@link #filterableFields(Field)})
+     * @param alias Pig to Elasticsearch field names
+     * @return filter as JSON or null
+     */
+    static String toFilter(Expression expression, Map<String, FieldType> fields, FieldAlias alias) {
+        Object filter = translate(expression, fields, alias);
+        if (filter == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(filter);
+        } catch (IOException ex) {
+            throw new SerializationException("Cannot serialize filter " + filter, ex);
+        }
+    }
+
+    private static Object translate(Expression expression, Map<String, FieldType> fields, FieldAlias alias) {
+        if (!(expression instanceof BinaryExpression)) {
+            return null;
+        }
+
+        BinaryExpression binary = (BinaryExpression) expression;
+        OpType op = binary.getOpType();
+
+        if (op == OpType.OP_AND || op == OpType.OP_OR) {
+            Object left = translate(binary.getLhs(), fields, alias);
+            Object right = translate(binary.getRhs(), fields, alias);
+            if (left == null || right == null) {
+                return null;
+            }
+            return map((op == OpType.OP_AND ? "and" : "or"), Arrays.asList(left, right));
+        }
+
+        // comparison - column on either side
+        boolean flip = false;
+        Expression column = binary.getLhs();
+        Expression value = binary.getRhs();
+        if (!(column instanceof Column)) {
+            flip = true;
+            column = binary.getRhs();
+            value = binary.getLhs();
+        }
+        if (!(column instanceof Column) || !(value instanceof Const)) {
+            return null;
+        }
+
+        String field = alias.toES(((Column) column).getName());
+        Object constant = ((Const) value).getValue();
+        if (!isExact(fields.get(field), constant)) {
+            return null;
+        }
+
+        switch (op) {
+        case OP_EQ:
+            return term(field, constant);
+        case OP_NE:
+            // null never matches in Pig
+            return map("and", Arrays.asList(map("exists", map("field", field)), map("not", term(field, constant))));
+        case OP_LT:
+            return range(field, (flip ? "gt" : "lt"), constant);
+        case OP_LE:
+            return range(field, (flip ? "gte" : "lte"), constant);
+        case OP_GT:
+            return range(field, (flip ? "lt" : "gt"), constant);
+        case OP_GE:
+            return range(field, (flip ? "lte" : "gte"), constant);
+        default:
+            return null;
+        }
+    }
+
+    // whether the constant is compared in ES the same way as in Pig (no truncation or loss of precision)
+    private static boolean isExact(FieldType type, Object constant) {
+        if (type == null || constant == null) {
+            return false;
+        }
+        boolean integral = (constant instanceof Integer || constant instanceof Long);
+
+        switch (type) {
+        case BOOLEAN:
+            return constant instanceof Boolean;
+        case BYTE:
+        case SHORT:
+        case INTEGER:
+        case LONG:
+            return integral;
+        case FLOAT:
+            return integral || constant instanceof Float;
+        case DOUBLE:
+            return integral || constant instanceof Float || constant instanceof Double;
+        default:
+            return false;
+        }
+    }
+
+    private static Object term(String field, Object value) {
+        return map("term", map(field, value));
+    }
+
+    private static Object range(String field, String operator, Object value) {
+        if (value instanceof Boolean) {
+            return null;
+        }
+        return map("range", map(field, map(operator, value)));
+    }
+
+    private static Map<String, Object> map(String key, Object value) {
+        return Collections.singletonMap(key, value);
+    }
+}
@@ -20,22 +20,33 @@ import java.util.Map;
 
 import org.apache.pig.ResourceSchema;
 import org.apache.pig.ResourceSchema.ResourceFieldSchema;
+import org.apache.pig.backend.executionengine.ExecException;
 import org.apache.pig.data.DataBag;
 import org.apache.pig.data.DataByteArray;
 import org.apache.pig.data.DataType;
 import org.apache.pig.data.Tuple;
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.serialization.FieldName;
 import org.elasticsearch.hadoop.serialization.Generator;
 import org.elasticsearch.hadoop.serialization.SerializationException;
 import org.elasticsearch.hadoop.serialization.SettingsAware;
 import org.elasticsearch.hadoop.serialization.ValueWriter;
 import org.elasticsearch.hadoop.util.StringUtils;
 
+/**
+ * Value writer for Pig tuples. Since the schema is fixed for the whole store, it is compiled (on the first tuple) into a tree of
+ * writers, one per field, with the field names aliased and encoded upfront; the fields are then written straight from the tuple
+ * without looking up their type.
+ */
 public class PigValueWriter implements ValueWriter<PigTuple>, SettingsAware {
 
     private final boolean writeUnknownTypes;
     private FieldAlias alias;
 
+    // writer compiled for the last schema seen
+    private ResourceFieldSchema compiledSchema;
+    private FieldWriter compiledWriter;
+
     public PigValueWriter() {
         writeUnknownTypes = false;
         alias = new FieldAlias();
@@ -44,12 +55,197 @@ public class PigValueWriter implements ValueWriter<PigTuple>, SettingsAware {
     @Override
     public void setSettings(Settings settings) {
         alias = PigUtils.load(settings);
+        // the field names need to be aliased again
+        compiledSchema = null;
+        compiledWriter = null;
     }
 
 
     @Override
     public boolean write(PigTuple type, Generator generator) {
-        return write(type.getTuple(), type.getSchema(), generator, false);
+        ResourceFieldSchema schema = type.getSchema();
+        if (schema != compiledSchema) {
+            compiledWriter = compile(schema);
+            compiledSchema = schema;
+        }
+        return compiledWriter.write(type.getTuple(), generator);
+    }
+
+    private FieldWriter compile(final ResourceFieldSchema field) {
+        switch (field.getType()) {
+        case DataType.BOOLEAN:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeBoolean((Boolean) object);
+                    return true;
+                }
+            };
+        case DataType.INTEGER:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeNumber(((Number) object).intValue());
+                    return true;
+                }
+            };
+        case DataType.LONG:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeNumber(((Number) object).longValue());
+                    return true;
+                }
+            };
+        case DataType.FLOAT:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeNumber(((Number) object).floatValue());
+                    return true;
+                }
+            };
+        case DataType.DOUBLE:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeNumber(((Number) object).doubleValue());
+                    return true;
+                }
+            };
+        case DataType.CHARARRAY:
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    generator.writeString(object.toString());
+                    return true;
+                }
+            };
+        case DataType.MAP:
+            return (field.getSchema() != null ? new MapWriter(field.getSchema()) : new EmptyWriter(false));
+        case DataType.TUPLE:
+            return (field.getSchema() != null ? new TupleWriter(field.getSchema()) : new EmptyWriter(false));
+        case DataType.BAG:
+            return (field.getSchema() != null ? new BagWriter(field.getSchema()) : new EmptyWriter(true));
+        default:
+            // less common types (and errors) are handled on the spot
+            return new FieldWriter() {
+                @Override
+                boolean writeValue(Object object, Generator generator) {
+                    return PigValueWriter.this.write(object, field, generator, false);
+                }
+            };
+        }
+    }
+
+    private abstract static class FieldWriter {
+
+        boolean write(Object object, Generator generator) {
+            if (object == null) {
+                generator.writeNull();
+                return true;
+            }
+            return writeValue(object, generator);
+        }
+
+        abstract boolean writeValue(Object object, Generator generator);
+    }
+
+    // schema-less compound types
+    private static class EmptyWriter extends FieldWriter {
+        private final boolean array;
+
+        EmptyWriter(boolean array) {
+            this.array = array;
+        }
+
+        @Override
+        boolean writeValue(Object object, Generator generator) {
+            if (array) {
+                generator.writeBeginArray();
+                generator.writeEndArray();
+            }
+            else {
+                generator.writeBeginObject();
+                generator.writeEndObject();
+            }
+            return true;
+        }
+    }
+
+    private class TupleWriter extends FieldWriter {
+        private final FieldName[] names;
+        private final FieldWriter[] fields;
+
+        TupleWriter(ResourceSchema schema) {
+            ResourceFieldSchema[] nestedFields = schema.getFields();
+            names = new FieldName[nestedFields.length];
+            fields = new FieldWriter[nestedFields.length];
+            for (int i = 0; i < nestedFields.length; i++) {
+                String name = nestedFields[i].getName();
+                // handle schemas without names
+                names[i] = new FieldName(StringUtils.hasText(name) ? alias.toES(name) : Integer.toString(i));
+                fields[i] = compile(nestedFields[i]);
+            }
+        }
+
+        @Override
+        boolean writeValue(Object object, Generator generator) {
+            Tuple tuple = (Tuple) object;
+            generator.writeBeginObject();
+            for (int i = 0; i < fields.length; i++) {
+                generator.writeFieldName(names[i]);
+                Object value;
+                try {
+                    value = tuple.get(i);
+                } catch (ExecException ex) {
+                    throw new SerializationException(String.format("Cannot read field [%s] of tuple [%s]", names[i], tuple), ex);
+                }
+                if (!fields[i].write(value, generator)) {
+                    return false;
+                }
+            }
+            generator.writeEndObject();
+            return true;
+        }
+    }
+
+    private class MapWriter extends FieldWriter {
+        private final FieldWriter value;
+
+        MapWriter(ResourceSchema schema) {
+            value = compile(schema.getFields()[0]);
+        }
+
+        @Override
+        boolean writeValue(Object object, Generator generator) {
+            generator.writeBeginObject();
+            // Pig maps are actually String -> Object association so we can save the key right away
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                generator.writeFieldName(alias.toES(entry.getKey().toString()));
+                value.write(entry.getValue(), generator);
+            }
+            generator.writeEndObject();
+            return true;
+        }
+    }
+
+    private class BagWriter extends FieldWriter {
+        private final FieldWriter element;
+
+        BagWriter(ResourceSchema schema) {
+            element = compile(schema.getFields()[0]);
+        }
+
+        @Override
+        boolean writeValue(Object object, Generator generator) {
+            generator.writeBeginArray();
+            for (Tuple tuple : (DataBag) object) {
+                element.write(tuple, generator);
+            }
+            generator.writeEndArray();
+            return true;
+        }
     }
 
     public boolean write(Object object, ResourceFieldSchema field, Generator generator, boolean writeFieldName) {
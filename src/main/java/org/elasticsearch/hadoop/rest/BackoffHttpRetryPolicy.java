@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.serialization.SettingsAware;
+import org.elasticsearch.hadoop.util.BackoffUtils;
+import org.elasticsearch.hadoop.util.StringUtils;
+import org.elasticsearch.hadoop.util.unit.TimeValue;
+
+/**
+ * Retry policy for overloaded nodes (429, 503 and 504 responses). Waits exponentially (capped) with full jitter between retries,
+ * honors the <code>Retry-After</code> header and keeps a circuit breaker per node (shared across the JVM) so that a node
+ * that keeps rejecting requests is avoided for a while.
+ */
+public class BackoffHttpRetryPolicy implements HttpRetryPolicy, SettingsAware {
+
+    private static Log log = LogFactory.getLog(BackoffHttpRetryPolicy.class);
+
+    private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private int retryLimit;
+    private long maxWait;
+    private int breakerFailures;
+    private long breakerCooldown;
+    private final Random random = new Random();
+
+    static class CircuitBreaker {
+        private int failures = 0;
+        private long openUntil = 0;
+
+        synchronized void failure(long now, int threshold, long cooldown) {
+            if (++failures >= threshold) {
+                failures = 0;
+                openUntil = now + cooldown;
+            }
+        }
+
+        synchronized void success() {
+            failures = 0;
+            openUntil = 0;
+        }
+
+        synchronized boolean isClosed(long now) {
+            return now >= openUntil;
+        }
+    }
+
+    private class BackoffRetry implements ResponseRetry {
+        private int retryCount = 0;
+
+        @Override
+        public boolean retry(int httpStatus) {
+            // used only by clients unaware of ResponseRetry - no waiting
+            return isOverloaded(httpStatus) && retryCount++ < retryLimit;
+        }
+
+        @Override
+        public long delay(Response response, String node) {
+            int status = response.status();
+            CircuitBreaker breaker = breaker(node);
+            long now = System.currentTimeMillis();
+
+            if (!isOverloaded(status)) {
+                if (HttpStatus.isSuccess(status)) {
+                    breaker.success();
+                }
+                return -1;
+            }
+
+            breaker.failure(now, breakerFailures, breakerCooldown);
+
+            if (retryCount >= retryLimit) {
+                return -1;
+            }
+
+            long delay = BackoffUtils.fullJitter(maxWait, retryCount++, retryLimit, random);
+            long retryAfter = retryAfter(response.header("Retry-After"), now);
+            if (retryAfter > maxWait) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Node [%s] asked to retry after %s, longer than the maximum wait - giving up...",
+                            node, TimeValue.timeValueMillis(retryAfter)));
+                }
+                return -1;
+            }
+            return Math.max(delay, retryAfter);
+        }
+
+        @Override
+        public boolean isAvailable(String node) {
+            return breaker(node).isClosed(System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public Retry init() {
+        return new BackoffRetry();
+    }
+
+    @Override
+    public void setSettings(Settings settings) {
+        retryLimit = settings.getBatchWriteRetryCount();
+        maxWait = settings.getBatchWriteRetryWait();
+        breakerFailures = settings.getBatchWriteRetryBreakerFailures();
+        breakerCooldown = settings.getBatchWriteRetryBreakerCooldown();
+    }
+
+    static boolean isOverloaded(int httpStatus) {
+        return (httpStatus == HttpStatus.TOO_MANY_REQUESTS || httpStatus == HttpStatus.SERVICE_UNAVAILABLE || httpStatus == HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    static CircuitBreaker breaker(String node) {
+        CircuitBreaker breaker = BREAKERS.get(node);
+        if (breaker == null) {
+            breaker = new CircuitBreaker();
+            CircuitBreaker existing = BREAKERS.putIfAbsent(node, breaker);
+            if (existing != null) {
+                breaker = existing;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Parses the <code>Retry-After</code> header (either delay in seconds or HTTP date) into millis from now.
+     * Returns 0 if the header is missing or cannot be parsed.
+     */
+    static long retryAfter(String header, long now) {
+        if (!StringUtils.hasText(header)) {
+            return 0;
+        }
+        String value = header.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException ex) {
+            // not a number, try a date
+        }
+
+        // RFC 1123 - the only format allowed by HTTP/1.1
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, format.parse(value).getTime() - now);
+        } catch (ParseException ex) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Cannot parse Retry-After header [%s]; ignoring it...", value));
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.hadoop.serialization.Parser;
+import org.elasticsearch.hadoop.serialization.Parser.Token;
+import org.elasticsearch.hadoop.serialization.json.JacksonJsonParser;
+import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.StringUtils;
+
+/**
+ * Outcome of a bulk request. Only the failed entries (their position inside the bulk and the associated message) are kept around.
+ * The response is parsed in a streaming fashion; the successful entries are skipped without being materialized and if the response
+ * declares (through the top-level 'errors' flag) that no entry failed, the items are not parsed at all.
+ */
+public class BulkResponse {
+
+    public static class Failure {
+        private final int position;
+        private final int status;
+        private final String message;
+
+        Failure(int position, int status, String message) {
+            this.position = position;
+            this.status = status;
+            this.message = message;
+        }
+
+        /**
+         * Returns the position (0-based) of the failed entry inside the bulk request.
+         */
+        public int position() {
+            return position;
+        }
+
+        /**
+         * Returns the HTTP status of the failed entry or 0 if none was reported (Elasticsearch pre 1.0).
+         */
+        public int status() {
+            return status;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d]:%s", position, message);
+        }
+    }
+
+    private static final String ERRORS = "errors";
+    private static final String ITEMS = "items";
+    private static final String ERROR = "error";
+    private static final String STATUS = "status";
+
+    private static final BulkResponse OK = new BulkResponse(Collections.<Failure> emptyList());
+
+    private final List<Failure> failures;
+
+    private BulkResponse(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    public List<Failure> failures() {
+        return failures;
+    }
+
+    static BulkResponse ok() {
+        return OK;
+    }
+
+    public static BulkResponse parse(byte[] content) {
+        return parseAndClose(new JacksonJsonParser(content));
+    }
+
+    public static BulkResponse parse(InputStream content) {
+        return parseAndClose(new JacksonJsonParser(content));
+    }
+
+    private static BulkResponse parseAndClose(Parser parser) {
+        try {
+            return parse(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    static BulkResponse parse(Parser parser) {
+        Token t = parser.nextToken();
+        Assert.isTrue(t == Token.START_OBJECT, "invalid bulk response; expected object, found " + t);
+
+        List<Failure> failures = Collections.emptyList();
+
+        for (t = parser.nextToken(); t == Token.FIELD_NAME; t = parser.nextToken()) {
+            String name = parser.currentName();
+            t = parser.nextToken();
+
+            if (ERRORS.equals(name) && t == Token.VALUE_BOOLEAN) {
+                // ES 1.0+ reports upfront whether any of the items failed
+                if (!parser.booleanValue()) {
+                    return OK;
+                }
+            }
+            else if (ITEMS.equals(name) && t == Token.START_ARRAY) {
+                failures = items(parser);
+            }
+            else {
+                parser.skipChildren();
+            }
+        }
+
+        return (failures.isEmpty() ? OK : new BulkResponse(failures));
+    }
+
+    private static List<Failure> items(Parser parser) {
+        List<Failure> failures = null;
+
+        int position = 0;
+        // each item looks like { "<operation>" : { "_index" : ..., "error" : ..., "status" : ... } }
+        for (Token t = parser.nextToken(); t != Token.END_ARRAY; t = parser.nextToken(), position++) {
+            Assert.isTrue(t == Token.START_OBJECT, "invalid bulk item; expected object, found " + t);
+            // operation name
+            parser.nextToken();
+            // operation body
+            t = parser.nextToken();
+            Assert.isTrue(t == Token.START_OBJECT, "invalid bulk item; expected object, found " + t);
+
+            String message = null;
+            int status = 0;
+
+            for (t = parser.nextToken(); t == Token.FIELD_NAME; t = parser.nextToken()) {
+                String name = parser.currentName();
+                t = parser.nextToken();
+
+                if (ERROR.equals(name) && t == Token.VALUE_STRING) {
+                    message = parser.text();
+                }
+                else if (STATUS.equals(name) && t == Token.VALUE_NUMBER) {
+                    status = parser.intValue();
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+
+            // close the item object
+            parser.nextToken();
+
+            if (StringUtils.hasText(message)) {
+                if (failures == null) {
+                    failures = new ArrayList<Failure>();
+                }
+                failures.add(new Failure(position, status, message));
+            }
+        }
+
+        return (failures != null ? failures : Collections.<Failure> emptyList());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.unit.ByteSizeValue;
+import org.elasticsearch.hadoop.util.unit.TimeValue;
+
+/**
+ * Adjusts the size (in bytes) of bulk requests based on their outcome through an AIMD (additive-increase/multiplicative-decrease) loop:
+ * the size grows slowly while bulks complete in time and without rejections and is halved otherwise.
+ * Thread-safe since bulks can be sent in the background.
+ */
+class BulkSizeController {
+
+    private static final Log log = LogFactory.getLog(BulkSizeController.class);
+
+    // number of increments between the min and max size
+    private static final int STEPS = 20;
+
+    private final int min;
+    private final int max;
+    private final int step;
+    private final long targetLatency;
+
+    private volatile int size;
+    private int adjustments = 0;
+
+    BulkSizeController(int min, int max, long targetLatencyMillis) {
+        Assert.isTrue(min > 0 && min <= max, String.format("Invalid bulk size bounds [%d, %d]", min, max));
+        this.min = min;
+        this.max = max;
+        this.step = Math.max(1, (max - min) / STEPS);
+        this.targetLatency = targetLatencyMillis;
+        // start small and grow
+        this.size = min;
+    }
+
+    /**
+     * Returns the current bulk size (in bytes).
+     *
+     * @return bulk size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Records the outcome of a bulk request.
+     *
+     * @param tookMillis round-trip time of the request
+     * @param entries number of entries sent
+     * @param rejected number of entries rejected
+     */
+    synchronized void update(long tookMillis, int entries, int rejected) {
+        int previous = size;
+
+        if (rejected > 0 || tookMillis > targetLatency) {
+            size = Math.max(min, previous / 2);
+        }
+        else {
+            size = (int) Math.min(max, (long) previous + step);
+        }
+
+        if (size != previous) {
+            adjustments++;
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Bulk of [%d] entries took [%s] with [%d] rejected; %s bulk size from [%s] to [%s]",
+                        entries, TimeValue.timeValueMillis(tookMillis), rejected, (size > previous ? "increasing" : "decreasing"),
+                        new ByteSizeValue(previous), new ByteSizeValue(size)));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("bulk size [%s] within [%s, %s] after [%d] adjustments", new ByteSizeValue(size), new ByteSizeValue(min),
+                new ByteSizeValue(max), adjustments);
+    }
+}
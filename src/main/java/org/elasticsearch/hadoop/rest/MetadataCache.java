@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.elasticsearch.hadoop.cfg.InternalConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.StringUtils;
+
+/**
+ * Cluster metadata (nodes, target shards, index existence) resolved once on the client side and passed to the tasks
+ * through the job configuration so they do not all hit the cluster on start-up. The metadata is used only while fresh
+ * (see <code>es.metadata.ttl</code>) - past that, or if anything is missing, the tasks fall back to a live lookup.
+ */
+public class MetadataCache {
+
+    private static final Log log = LogFactory.getLog(MetadataCache.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String TIME = "time";
+    private static final String HOSTS = "hosts";
+    private static final String NODES = "nodes";
+    private static final String SHARDS = "shards";
+    private static final String SHARDS_TARGET = "shards_target";
+    private static final String EXISTING = "existing";
+
+    private final Map<String, Object> data;
+
+    MetadataCache(long timestamp) {
+        data = new LinkedHashMap<String, Object>();
+        data.put(TIME, timestamp);
+    }
+
+    private MetadataCache(Map<String, Object> data) {
+        this.data = data;
+    }
+
+    /**
+     * Returns the metadata saved in the given settings or null if there is none or if it expired.
+     *
+     * @param settings settings
+     * @return the cached metadata or null
+     */
+    @SuppressWarnings("unchecked")
+    public static MetadataCache load(Settings settings) {
+        long ttl = settings.getMetadataTtl();
+        String value = settings.getProperty(InternalConfigurationOptions.INTERNAL_ES_METADATA);
+        if (ttl <= 0 || !StringUtils.hasText(value)) {
+            return null;
+        }
+
+        Map<String, Object> data;
+        try {
+            data = MAPPER.readValue(value, Map.class);
+        } catch (IOException ex) {
+            log.warn("Cannot read cached cluster metadata; falling back to live lookup", ex);
+            return null;
+        }
+
+        Object time = data.get(TIME);
+        long age = (time instanceof Number ? System.currentTimeMillis() - ((Number) time).longValue() : Long.MAX_VALUE);
+        if (age < 0 || age > ttl) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cached cluster metadata expired; falling back to live lookup");
+            }
+            return null;
+        }
+        return new MetadataCache(data);
+    }
+
+    /**
+     * Resolves the metadata needed by the tasks writing to the target resource and saves it inside the settings.
+     * Does nothing if caching is disabled.
+     *
+     * @param settings settings
+     * @param log logger
+     */
+    public static void cacheForWriting(Settings settings, Log log) throws IOException {
+        // ignore any previous metadata
+        settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_METADATA, "");
+        if (settings.getMetadataTtl() <= 0) {
+            return;
+        }
+
+        MetadataCache cache;
+        RestClient client = new RestClient(settings);
+        try {
+            cache = resolve(client, settings);
+        } finally {
+            client.close();
+        }
+
+        int size = cache.save(settings);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Cached cluster metadata for [%s] (%d bytes)", settings.getTargetResource(), size));
+        }
+    }
+
+    static MetadataCache resolve(RestClient client, Settings settings) throws IOException {
+        MetadataCache cache = new MetadataCache(System.currentTimeMillis());
+        if (settings.getNodesDiscovery()) {
+            cache.hosts(client.discoverNodes());
+        }
+        cache.nodes(client.nodesInfo());
+
+        Resource resource = new Resource(settings);
+        // the index might not exist yet (the tasks create it) in which case the shards are looked up by the tasks themselves
+        if (client.exists(resource.index())) {
+            cache.shards(resource.targetShards(), client.targetShards(resource));
+            if (client.exists(resource.indexAndType())) {
+                cache.exists(resource.index(), resource.indexAndType());
+            }
+            else {
+                cache.exists(resource.index());
+            }
+        }
+        return cache;
+    }
+
+    int save(Settings settings) throws IOException {
+        String value = MAPPER.writeValueAsString(data);
+        settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_METADATA, value);
+        return value.length();
+    }
+
+    void hosts(List<String> hosts) {
+        data.put(HOSTS, hosts);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<String> hosts() {
+        return (List<String>) data.get(HOSTS);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Map<String, Object>> nodes() {
+        return (Map<String, Map<String, Object>>) data.get(NODES);
+    }
+
+    void nodes(Map<String, Map<String, Object>> nodes) {
+        // keep only what is actually used
+        Map<String, Map<String, Object>> compact = new LinkedHashMap<String, Map<String, Object>>(nodes.size());
+        for (Entry<String, Map<String, Object>> entry : nodes.entrySet()) {
+            Map<String, Object> node = new LinkedHashMap<String, Object>(2);
+            node.put("name", entry.getValue().get("name"));
+            node.put("http_address", entry.getValue().get("http_address"));
+            compact.put(entry.getKey(), node);
+        }
+        data.put(NODES, compact);
+    }
+
+    @SuppressWarnings("unchecked")
+    List<List<Map<String, Object>>> shards(String target) {
+        return (target.equals(data.get(SHARDS_TARGET)) ? (List<List<Map<String, Object>>>) data.get(SHARDS) : null);
+    }
+
+    void shards(String target, List<List<Map<String, Object>>> shards) {
+        data.put(SHARDS_TARGET, target);
+        data.put(SHARDS, shards);
+    }
+
+    /**
+     * Returns true if the given index (or index/type) is known to exist, false otherwise (in which case a live lookup is needed).
+     */
+    @SuppressWarnings("unchecked")
+    boolean exists(String indexOrType) {
+        List<String> existing = (List<String>) data.get(EXISTING);
+        return (existing != null && existing.contains(indexOrType));
+    }
+
+    void exists(String... indexOrTypes) {
+        data.put(EXISTING, Arrays.asList(indexOrTypes));
+    }
+}
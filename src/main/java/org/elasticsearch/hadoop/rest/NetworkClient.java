@@ -16,97 +16,167 @@
 package org.elasticsearch.hadoop.rest;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.rest.commonshttp.CommonsHttpTransport;
-import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.IOUtils;
 import org.elasticsearch.hadoop.util.ObjectUtils;
+import org.elasticsearch.hadoop.util.unit.TimeValue;
 
 public class NetworkClient {
 
     private static Log log = LogFactory.getLog(NetworkClient.class);
 
     private final Settings settings;
-    private final List<String> nodes;
     private final HttpRetryPolicy retryPolicy;
+    private final NodeSelector selector;
+    private final Map<String, Transport> transports = new LinkedHashMap<String, Transport>();
 
-    private Transport currentTransport;
     private String currentUri;
-    private int nextClient = 0;
 
     public NetworkClient(Settings settings, List<String> hostURIs) {
         this.settings = settings.copy();
-        this.nodes = hostURIs;
+        this.selector = new NodeSelector(hostURIs, settings.getNodesCooldown());
 
         String retryPolicyName = settings.getBatchWriteRetryPolicy();
 
         if (ConfigurationOptions.ES_BATCH_WRITE_RETRY_POLICY_SIMPLE.equals(retryPolicyName)) {
             retryPolicyName = SimpleHttpRetryPolicy.class.getName();
         }
+        else if (ConfigurationOptions.ES_BATCH_WRITE_RETRY_POLICY_BACKOFF.equals(retryPolicyName)) {
+            retryPolicyName = BackoffHttpRetryPolicy.class.getName();
+        }
         else if (ConfigurationOptions.ES_BATCH_WRITE_RETRY_POLICY_NONE.equals(retryPolicyName)) {
             retryPolicyName = NoHttpRetryPolicy.class.getName();
         }
 
         retryPolicy = ObjectUtils.instantiate(retryPolicyName, settings);
-        selectNextNode();
-
-        Assert.notNull(currentTransport, "no node information provided");
     }
 
-    private boolean selectNextNode() {
-        if (nextClient >= nodes.size()) {
+    private boolean selectNextNode(Collection<String> tried) {
+        String node = selector.select(tried, System.currentTimeMillis());
+        if (node == null) {
             return false;
         }
-
-        currentUri = nodes.get(nextClient++);
-        close();
-
-        //TODO: split host/port
-        settings.cleanHosts();
-        settings.setHosts(currentUri);
-        currentTransport = new CommonsHttpTransport(settings, currentUri);
+        currentUri = node;
         return true;
     }
 
+    private Transport transport(String node) {
+        Transport transport = transports.get(node);
+        if (transport == null) {
+            //TODO: split host/port
+            settings.cleanHosts();
+            settings.setHosts(node);
+            transport = new CommonsHttpTransport(settings, node);
+            transports.put(node, transport);
+        }
+        return transport;
+    }
+
     public Response execute(Request request) throws IOException {
         Retry retry = retryPolicy.init();
-        int httpStatus = 0;
         Response response = null;
+        // nodes that failed (with an exception) for this request
+        Set<String> tried = new LinkedHashSet<String>();
 
-        SimpleRequest routedRequest = new SimpleRequest(request.method(), currentUri, request.path(), request.params(), request.body());
+        selectNextNode(tried);
 
         do {
             boolean newNode;
             do {
                 newNode = false;
+                long start = System.currentTimeMillis();
                 try {
-                    response = currentTransport.execute(routedRequest);
+                    SimpleRequest routedRequest = new SimpleRequest(request.method(), currentUri, request.path(), request.params(), request.body());
+                    selector.started(currentUri);
+                    response = transport(currentUri).execute(routedRequest);
+                    selector.success(currentUri, System.currentTimeMillis() - start);
                 } catch (Exception ex) {
                     if (log.isTraceEnabled()) {
                         log.trace(String.format("Caught exception while performing request [%s][%s] - falling back to the next node in line...", currentUri, request.path()), ex);
                     }
-                    newNode = selectNextNode();
+                    selector.failure(currentUri, System.currentTimeMillis());
+                    tried.add(currentUri);
+                    String failedUri = currentUri;
+                    newNode = selectNextNode(tried);
                     if (!newNode) {
                         throw new IOException("Out of nodes and retries; caught exception", ex);
                     }
                     if (log.isDebugEnabled()) {
-                        log.debug(String.format("[%s] [%s] failed on node [%s]; selecting next node...",
-                                request.method().name(), request.path(), currentUri));
+                        log.debug(String.format("[%s] [%s] failed on node [%s]; selecting node [%s]...",
+                                request.method().name(), request.path(), failedUri, currentUri));
                     }
                 }
             } while (newNode);
-        } while (retry.retry(httpStatus));
+        } while (retry(retry, request, response, tried));
 
         return response;
     }
 
+    private boolean retry(Retry retry, Request request, Response response, Set<String> tried) throws IOException {
+        if (!(retry instanceof ResponseRetry)) {
+            boolean again = retry.retry(response.status());
+            if (again) {
+                // discard the response
+                IOUtils.close(response.body());
+            }
+            return again;
+        }
+
+        ResponseRetry responseRetry = (ResponseRetry) retry;
+        long delay = responseRetry.delay(response, currentUri);
+        if (delay < 0) {
+            return false;
+        }
+
+        // discard the response
+        IOUtils.close(response.body());
+
+        // the node is overloaded - try the next one (if any) right away
+        if (!responseRetry.isAvailable(currentUri)) {
+            String previousUri = currentUri;
+            selector.failure(previousUri, System.currentTimeMillis());
+            tried.add(previousUri);
+            if (selectNextNode(tried)) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("[%s] [%s] failed on overloaded node [%s] (status [%d]); retrying on node [%s]...",
+                            request.method().name(), request.path(), previousUri, response.status(), currentUri));
+                }
+                return true;
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("[%s] [%s] failed on node [%s] (status [%d]); retrying in %s...",
+                    request.method().name(), request.path(), currentUri, response.status(), TimeValue.timeValueMillis(delay)));
+        }
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry request", ex);
+        }
+        return true;
+    }
+
     public void close() {
-        if (currentTransport != null) {
-            currentTransport.close();
+        for (Transport transport : transports.values()) {
+            transport.close();
+        }
+        transports.clear();
+        if (log.isTraceEnabled()) {
+            log.trace(String.format("Closing network client; node stats %s", selector));
         }
     }
 }
\ No newline at end of file
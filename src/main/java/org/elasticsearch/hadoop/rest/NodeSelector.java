@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.elasticsearch.hadoop.util.Assert;
+
+/**
+ * Tracks the health of a set of nodes (response time EWMA, in-flight requests, consecutive errors) and picks the least loaded
+ * healthy node for each request. To avoid all clients piling onto the same (fastest) node, the choice is made between two
+ * random healthy nodes (power of two choices), the one with the lowest latency times in-flight requests winning. Failing nodes are put in cool-down (growing exponentially with the consecutive errors) after which
+ * a single request is sent to probe them; on success they are used again.
+ */
+class NodeSelector {
+
+    // weight of the latest response time in the EWMA
+    static final double ALPHA = 0.3;
+    // cap the cool-down growth (2^5)
+    private static final int MAX_COOLDOWN_SHIFT = 5;
+
+    static class NodeStats {
+        double latency = -1;
+        int errors = 0;
+        long totalErrors = 0;
+        long requests = 0;
+        long retryAt = 0;
+        int inFlight = 0;
+        boolean probing = false;
+
+        boolean isHealthy() {
+            return errors == 0;
+        }
+
+        double load() {
+            // unknown latency counts as the lowest so new nodes get used
+            return (Math.max(0, latency) + 1) * (inFlight + 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("latency=%.1fms, requests=%d, errors=%d", latency, requests, totalErrors);
+        }
+    }
+
+    private final Map<String, NodeStats> stats;
+    private final long cooldown;
+    private final Random random = new Random();
+
+    NodeSelector(List<String> nodes, long cooldown) {
+        Assert.isTrue(nodes != null && !nodes.isEmpty(), "no node information provided");
+        this.cooldown = cooldown;
+        stats = new LinkedHashMap<String, NodeStats>(nodes.size());
+        for (String node : nodes) {
+            stats.put(node, new NodeStats());
+        }
+    }
+
+    /**
+     * Picks the node for the next request, ignoring the given ones (already tried).
+     *
+     * @param exclude nodes to ignore
+     * @param now current time
+     * @return the selected node or null if all of them are excluded
+     */
+    synchronized String select(Collection<String> exclude, long now) {
+        List<String> healthy = new ArrayList<String>(stats.size());
+        String fallback = null;
+        long fallbackRetryAt = Long.MAX_VALUE;
+
+        for (Map.Entry<String, NodeStats> entry : stats.entrySet()) {
+            String node = entry.getKey();
+            if (exclude != null && exclude.contains(node)) {
+                continue;
+            }
+            NodeStats stat = entry.getValue();
+
+            if (!stat.isHealthy()) {
+                // cool-down over; probe the node
+                if (!stat.probing && now >= stat.retryAt) {
+                    stat.probing = true;
+                    return node;
+                }
+                if (stat.retryAt < fallbackRetryAt) {
+                    fallback = node;
+                    fallbackRetryAt = stat.retryAt;
+                }
+                continue;
+            }
+            healthy.add(node);
+        }
+
+        // no healthy node left - use the one closest to recovery
+        if (healthy.isEmpty()) {
+            return fallback;
+        }
+        if (healthy.size() == 1) {
+            return healthy.get(0);
+        }
+
+        // power of two choices
+        int first = random.nextInt(healthy.size());
+        int second = random.nextInt(healthy.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        String a = healthy.get(first);
+        String b = healthy.get(second);
+        return (stats.get(b).load() < stats.get(a).load() ? b : a);
+    }
+
+    /**
+     * Marks the start of a request on the given node; it ends through {@link #success(String, long)} or {@link #failure(String, long)}.
+     */
+    synchronized void started(String node) {
+        NodeStats stat = stats.get(node);
+        if (stat != null) {
+            stat.inFlight++;
+        }
+    }
+
+    synchronized void success(String node, long took) {
+        NodeStats stat = stats.get(node);
+        if (stat == null) {
+            return;
+        }
+        stat.requests++;
+        stat.inFlight = Math.max(0, stat.inFlight - 1);
+        stat.latency = (stat.latency < 0 ? took : ALPHA * took + (1 - ALPHA) * stat.latency);
+        stat.errors = 0;
+        stat.probing = false;
+    }
+
+    synchronized void failure(String node, long now) {
+        NodeStats stat = stats.get(node);
+        if (stat == null) {
+            return;
+        }
+        stat.requests++;
+        stat.inFlight = Math.max(0, stat.inFlight - 1);
+        stat.totalErrors++;
+        stat.errors++;
+        stat.probing = false;
+        stat.retryAt = now + (cooldown << Math.min(stat.errors - 1, MAX_COOLDOWN_SHIFT));
+    }
+
+    synchronized boolean isHealthy(String node) {
+        NodeStats stat = stats.get(node);
+        return (stat != null && stat.isHealthy());
+    }
+
+    synchronized NodeStats stats(String node) {
+        return stats.get(node);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return stats.toString();
+    }
+}
@@ -17,11 +17,14 @@ package org.elasticsearch.hadoop.rest;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.codehaus.jackson.map.ObjectMapper;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.serialization.ScrollReader;
 import org.elasticsearch.hadoop.util.Assert;
@@ -35,6 +38,9 @@ public class QueryBuilder {
     private final Resource resource;
 
     private static String MATCH_ALL = "{\"query\":{\"match_all\":{}}}";
+    private static final String STATS_FACET = "es-hadoop-stats";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
     private Map<String, String> uriQuery = new LinkedHashMap<String, String>();
     private BytesArray bodyQuery;
@@ -45,6 +51,7 @@ public class QueryBuilder {
     private String node;
 
     private String fields;
+    private final List<String> filters = new ArrayList<String>();
 
     QueryBuilder(Settings settings) {
         this.resource = new Resource(settings);
@@ -53,6 +60,11 @@ public class QueryBuilder {
             query = MATCH_ALL;
         }
         parseQuery(query.trim(), settings);
+
+        String filter = settings.getQueryFilter();
+        if (StringUtils.hasText(filter)) {
+            filters.add(filter);
+        }
     }
 
     public static QueryBuilder query(Settings settings) {
@@ -133,6 +145,19 @@ public class QueryBuilder {
         return this;
     }
 
+    /**
+     * Restricts the query results to the documents matching the given filter (in JSON format).
+     * Multiple filters are combined (through an <code>and</code> filter).
+     *
+     * @param filter JSON filter
+     * @return this builder
+     */
+    public QueryBuilder filter(String filter) {
+        Assert.hasText(filter, "Invalid filter");
+        filters.add(filter);
+        return this;
+    }
+
     private String assemble() {
         StringBuilder sb = new StringBuilder(resource.indexAndType());
         sb.append("/_search?");
@@ -150,6 +175,24 @@ public class QueryBuilder {
             uriQuery.put("fields", fields);
         }
 
+        appendParams(sb);
+        return sb.toString();
+    }
+
+    private String assembleCount() {
+        StringBuilder sb = new StringBuilder(resource.indexAndType());
+        sb.append("/_search?");
+
+        uriQuery.put("search_type", "count");
+        uriQuery.remove("scroll");
+        uriQuery.remove("size");
+        uriQuery.remove("fields");
+
+        appendParams(sb);
+        return sb.toString();
+    }
+
+    private void appendParams(StringBuilder sb) {
         StringBuilder pref = new StringBuilder();
         if (StringUtils.hasText(shard)) {
             pref.append("_shards:");
@@ -177,19 +220,160 @@ public class QueryBuilder {
                 sb.append("&");
             }
         }
+    }
 
-        return sb.toString();
+    @SuppressWarnings("unchecked")
+    BytesArray assembleBody(Map<String, Object> extra) {
+        if (filters.isEmpty() && extra == null) {
+            return bodyQuery;
+        }
+
+        try {
+            Map<String, Object> body = (bodyQuery != null ? MAPPER.readValue(bodyQuery.bytes(), 0, bodyQuery.size(), LinkedHashMap.class) : new LinkedHashMap<String, Object>());
+
+            if (!filters.isEmpty()) {
+                List<Object> parsed = new ArrayList<Object>(filters.size());
+                for (String filter : filters) {
+                    parsed.add(MAPPER.readValue(filter, LinkedHashMap.class));
+                }
+                Object filter = (parsed.size() == 1 ? parsed.get(0) : singletonMap("and", parsed));
+
+                Object query = body.get("query");
+                // filter the query itself - this way the filter is applied as early as possible
+                if (query != null) {
+                    Map<String, Object> filtered = new LinkedHashMap<String, Object>();
+                    filtered.put("query", query);
+                    filtered.put("filter", filter);
+                    body.put("query", singletonMap("filtered", filtered));
+                }
+                // no query (the query is specified in the URI) - use a top-level filter
+                else {
+                    Object existing = body.get("filter");
+                    if (existing != null) {
+                        List<Object> and = new ArrayList<Object>(2);
+                        and.add(existing);
+                        and.add(filter);
+                        filter = singletonMap("and", and);
+                    }
+                    body.put("filter", filter);
+                }
+            }
+
+            if (extra != null) {
+                body.putAll(extra);
+            }
+
+            return new BytesArray(MAPPER.writeValueAsBytes(body));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Cannot parse query " + (bodyQuery != null ? bodyQuery : uriQuery), ex);
+        }
+    }
+
+    private static Map<String, Object> singletonMap(String key, Object value) {
+        Map<String, Object> map = new LinkedHashMap<String, Object>(2);
+        map.put(key, value);
+        return map;
     }
 
     public ScrollQuery build(RestRepository client, ScrollReader reader) {
         String scrollUri = assemble();
         try {
-            return client.scan(scrollUri, bodyQuery, reader);
+            return client.scan(scrollUri, assembleBody(null), reader);
         } catch (IOException ex) {
             throw new IllegalStateException("Cannot build scroll [" + scrollUri + "]", ex);
         }
     }
 
+    /**
+     * Splits the interval [min, max] of the given field into (at most) the given number of contiguous range filters.
+     * The first and last ranges are open-ended so that, together, the filters match any document (including the ones
+     * without the field which are matched by the first filter) while each document is matched by only one filter
+     * (assuming the field is single-valued).
+     *
+     * @param field numeric or date field
+     * @param min minimum field value
+     * @param max maximum field value
+     * @param slices number of slices
+     * @return JSON filters or an empty list if the interval cannot be sliced
+     */
+    public static List<String> rangeSlices(String field, double min, double max, int slices) {
+        List<String> filters = new ArrayList<String>();
+        if (slices < 2 || Double.isNaN(min) || Double.isNaN(max) || Double.isInfinite(min) || Double.isInfinite(max) || !(max > min)) {
+            return filters;
+        }
+
+        // long and date fields do not accept decimal bounds
+        boolean integral = (min == Math.floor(min) && max == Math.floor(max));
+
+        List<Number> bounds = new ArrayList<Number>(slices - 1);
+        for (int i = 1; i < slices; i++) {
+            double bound = min + (max - min) * i / slices;
+            Number value = (integral ? (Number) Long.valueOf((long) Math.floor(bound)) : (Number) Double.valueOf(bound));
+            // skip empty slices
+            if (value.doubleValue() > min && (bounds.isEmpty() || !value.equals(bounds.get(bounds.size() - 1)))) {
+                bounds.add(value);
+            }
+        }
+
+        if (bounds.isEmpty()) {
+            return filters;
+        }
+
+        try {
+            Number previous = null;
+            for (int i = 0; i <= bounds.size(); i++) {
+                Map<String, Object> range = new LinkedHashMap<String, Object>();
+                if (previous != null) {
+                    range.put("gte", previous);
+                }
+                if (i < bounds.size()) {
+                    previous = bounds.get(i);
+                    range.put("lt", previous);
+                }
+
+                Object filter = singletonMap("range", singletonMap(field, range));
+                if (i == 0) {
+                    List<Object> or = new ArrayList<Object>(2);
+                    or.add(filter);
+                    or.add(singletonMap("missing", singletonMap("field", field)));
+                    filter = singletonMap("or", or);
+                }
+                filters.add(MAPPER.writeValueAsString(filter));
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot create range filters", ex);
+        }
+        return filters;
+    }
+
+    /**
+     * Returns the statistics of the given (numeric or date) field across the documents matching the query as an array containing
+     * the number of matching documents, the minimum and the maximum value of the field.
+     *
+     * @param client repository
+     * @param field numeric field
+     * @return number of matching documents, min and max of the field
+     */
+    @SuppressWarnings("unchecked")
+    public double[] fieldStats(RestRepository client, String field) {
+        Map<String, Object> facet = singletonMap("statistical", singletonMap("field", field));
+        BytesArray body = assembleBody(singletonMap("facets", singletonMap(STATS_FACET, facet)));
+
+        String countUri = assembleCount();
+        try {
+            Map<String, Object> result = client.search(countUri, body);
+            Map<String, Object> stats = (Map<String, Object>) ((Map<String, Object>) result.get("facets")).get(STATS_FACET);
+            long total = ((Number) ((Map<String, Object>) result.get("hits")).get("total")).longValue();
+            // empty field - no min/max
+            if (((Number) stats.get("count")).longValue() == 0) {
+                return new double[] { total, Double.NaN, Double.NaN };
+            }
+            return new double[] { total, ((Number) stats.get("min")).doubleValue(), ((Number) stats.get("max")).doubleValue() };
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot compute statistics [" + countUri + "]", ex);
+        }
+    }
+
     @Override
     public String toString() {
         return "QueryBuilder [" + assemble() + "]";
@@ -15,7 +15,7 @@
  */
 package org.elasticsearch.hadoop.rest;
 
-import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.ByteSequence;
 
 public interface Request {
 
@@ -31,5 +31,5 @@ public interface Request {
 
     CharSequence params();
 
-    BytesArray body();
+    ByteSequence body();
 }
@@ -95,6 +95,10 @@ public class Resource {
         return indexAndType + "/_search_shards";
     }
 
+    String shardStats() {
+        return index + "/_stats?clear=true&docs=true&store=true&level=shards";
+    }
+
     String mapping() {
         return indexAndType + "/_mapping";
     }
@@ -15,14 +15,31 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import java.io.InputStream;
+
 public interface Response {
 
     int status();
 
-    byte[] body();
+    /**
+     * Returns the response body as a stream (which can be null, for example for HEAD requests). The body is read as it arrives,
+     * from the underlying connection which is kept busy until the stream is fully read or closed. Hence callers are
+     * expected to always close the returned stream.
+     *
+     * @return response body
+     */
+    InputStream body();
 
     CharSequence uri();
 
+    /**
+     * Returns the value of the given response header (case insensitive) or null if not present.
+     *
+     * @param name header name
+     * @return header value
+     */
+    String header(String name);
+
     boolean isInformal();
 
     boolean isSuccess();
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+/**
+ * {@link Retry} that inspects the full response (headers included) and keeps track of the node health.
+ * Instead of waiting itself, it returns the delay so the caller can decide to use a different node in the meantime.
+ */
+public interface ResponseRetry extends Retry {
+
+    /**
+     * Returns the time (in millis) to wait before retrying the request or a negative value if no retry should occur.
+     *
+     * @param response response received
+     * @param node node that returned the response
+     * @return the delay before retrying or a negative value if the request should not be retried
+     */
+    long delay(Response response, String node);
+
+    /**
+     * Indicates whether the given node can be used or whether it is overloaded and should be avoided.
+     *
+     * @param node node
+     * @return true if the node is available, false otherwise
+     */
+    boolean isAvailable(String node);
+}
@@ -17,6 +17,7 @@ package org.elasticsearch.hadoop.rest;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -32,7 +33,9 @@ import org.codehaus.jackson.map.ObjectMapper;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.rest.Request.Method;
 import org.elasticsearch.hadoop.rest.dto.Node;
+import org.elasticsearch.hadoop.util.ByteSequence;
 import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.IOUtils;
 import org.elasticsearch.hadoop.util.NodeUtils;
 import org.elasticsearch.hadoop.util.StringUtils;
 import org.elasticsearch.hadoop.util.unit.TimeValue;
@@ -47,6 +50,8 @@ public class RestClient implements Closeable {
     private ObjectMapper mapper = new ObjectMapper();
     private TimeValue scrollKeepAlive;
     private boolean indexReadMissingAsEmpty;
+    // cluster metadata resolved upfront (if any)
+    private final MetadataCache metadata;
 
     public enum HEALTH {
         RED, YELLOW, GREEN
@@ -54,13 +59,20 @@ public class RestClient implements Closeable {
 
     public RestClient(Settings settings) {
         network = new NetworkClient(settings, NodeUtils.nodes(settings));
+        // statistics can return Infinity/NaN
+        mapper.configure(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS, true);
 
         scrollKeepAlive = TimeValue.timeValueMillis(settings.getScrollKeepAlive());
         indexReadMissingAsEmpty = settings.getIndexReadMissingAsEmpty();
+        metadata = MetadataCache.load(settings);
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public List<String> discoverNodes() throws IOException {
+        if (metadata != null && metadata.hosts() != null) {
+            return new ArrayList<String>(metadata.hosts());
+        }
+
         Map<String, Map> nodes = (Map<String, Map>) get("_cluster/nodes", "nodes");
 
         List<String> hosts = new ArrayList<String>(nodes.size());
@@ -83,59 +95,57 @@ public class RestClient implements Closeable {
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T parseContent(byte[] content, String string) throws IOException {
-        // create parser manually to lower Jackson requirements
-        JsonParser jsonParser = mapper.getJsonFactory().createJsonParser(content);
-        Map<String, Object> map = mapper.readValue(jsonParser, Map.class);
+    private <T> T parseContent(InputStream content, String string) throws IOException {
+        Map<String, Object> map = null;
+        try {
+            // create parser manually to lower Jackson requirements
+            JsonParser jsonParser = mapper.getJsonFactory().createJsonParser(content);
+            map = mapper.readValue(jsonParser, Map.class);
+        } finally {
+            IOUtils.close(content);
+        }
         return (T) (string != null ? map.get(string) : map);
     }
 
-    @SuppressWarnings("unchecked")
-    public void bulk(Resource resource, BytesArray buffer) throws IOException {
+    public BulkResponse bulk(Resource resource, ByteSequence buffer) throws IOException {
         //empty buffer, ignore
         if (buffer.size() == 0) {
-            return;
+            return BulkResponse.ok();
         }
 
         if (log.isTraceEnabled()) {
             log.trace("Sending bulk request " + buffer.toString());
         }
 
-        byte[] content = execute(PUT, resource.bulk(), buffer);
-
-        // create parser manually to lower Jackson requirements
-        JsonParser jsonParser = mapper.getJsonFactory().createJsonParser(content);
-        Map<String, Object> map = mapper.readValue(jsonParser, Map.class);
-        List<Object> items = (List<Object>) map.get("items");
-
-        for (Object item : items) {
-            Map<String, String> messages = (Map<String, String>) ((Map) item).values().iterator().next();
-            String message = messages.get("error");
-            if (StringUtils.hasText(message)) {
-                throw new IllegalStateException(String.format(
-                        "Bulk request on index [%s] failed; at least one error reported [%s]", resource.indexAndType(), message));
-            }
-        }
+        InputStream content = execute(PUT, resource.bulk(), buffer);
 
         if (log.isTraceEnabled()) {
-            log.trace("Received bulk response " + StringUtils.asUTFString(content));
+            String response = IOUtils.asString(content);
+            log.trace("Received bulk response " + response);
+            return BulkResponse.parse(response.getBytes(StringUtils.UTF_8));
         }
+
+        return BulkResponse.parse(content);
     }
 
     public void refresh(Resource resource) throws IOException {
-        execute(POST, resource.refresh());
+        IOUtils.close(execute(POST, resource.refresh()));
     }
 
     public void deleteIndex(String index) throws IOException {
-        execute(DELETE, index);
+        IOUtils.close(execute(DELETE, index));
     }
 
     public List<List<Map<String, Object>>> targetShards(Resource resource) throws IOException {
-        List<List<Map<String, Object>>> shardsJson = null;
+        List<List<Map<String, Object>>> shardsJson = (metadata != null ? metadata.shards(resource.targetShards()) : null);
+        if (shardsJson != null) {
+            return shardsJson;
+        }
 
         if (indexReadMissingAsEmpty) {
             Response res = execute(GET, resource.targetShards(), false);
             if (res.status() == HttpStatus.NOT_FOUND) {
+                IOUtils.close(res.body());
                 shardsJson = Collections.emptyList();
             }
             else {
@@ -149,8 +159,17 @@ public class RestClient implements Closeable {
         return shardsJson;
     }
 
+    public Map<String, Map<String, Object>> shardStats(Resource resource) throws IOException {
+        return get(resource.shardStats(), "indices");
+    }
+
+    Map<String, Map<String, Object>> nodesInfo() throws IOException {
+        Map<String, Map<String, Object>> nodesData = (metadata != null ? metadata.nodes() : null);
+        return (nodesData != null ? nodesData : this.<Map<String, Map<String, Object>>> get("_nodes", "nodes"));
+    }
+
     public Map<String, Node> getNodes() throws IOException {
-        Map<String, Map<String, Object>> nodesData = get("_nodes", "nodes");
+        Map<String, Map<String, Object>> nodesData = nodesInfo();
         Map<String, Node> nodes = new LinkedHashMap<String, Node>();
 
         for (Entry<String, Map<String, Object>> entry : nodesData.entrySet()) {
@@ -170,11 +189,11 @@ public class RestClient implements Closeable {
         network.close();
     }
 
-    byte[] execute(Request request) throws IOException {
+    InputStream execute(Request request) throws IOException {
         return execute(request, true).body();
     }
 
-    byte[] execute(Method method, String path) throws IOException {
+    InputStream execute(Method method, String path) throws IOException {
         return execute(new SimpleRequest(method, null, path));
     }
 
@@ -182,7 +201,7 @@ public class RestClient implements Closeable {
         return execute(new SimpleRequest(method, null, path), false);
     }
 
-    byte[] execute(Method method, String path, BytesArray buffer) throws IOException {
+    InputStream execute(Method method, String path, ByteSequence buffer) throws IOException {
         return execute(new SimpleRequest(method, null, path, null, buffer));
     }
 
@@ -190,7 +209,8 @@ public class RestClient implements Closeable {
         Response response = network.execute(request);
 
         if (checkStatus && response.hasFailed()) {
-            String bodyAsString = StringUtils.asUTFString(response.body());
+            InputStream body = response.body();
+            String bodyAsString = (body != null ? IOUtils.asString(body) : StringUtils.EMPTY);
             throw new IllegalStateException(String.format("[%s] on [%s] failed; server[%s] returned [%s]",
                     request.method().name(), request.path(), response.uri(), bodyAsString));
         }
@@ -207,24 +227,42 @@ public class RestClient implements Closeable {
         return data;
     }
 
-    public byte[] scroll(String scrollId) throws IOException {
+    public Map<String, Object> search(String query, BytesArray body) throws IOException {
+        return parseContent(execute(POST, query, body), null);
+    }
+
+    public InputStream scroll(String scrollId) throws IOException {
         // use post instead of get to avoid some weird encoding issues (caused by the long URL)
         return execute(POST, "_search/scroll?scroll=" + scrollKeepAlive.toString(), new BytesArray(scrollId.getBytes(StringUtils.UTF_8)));
     }
 
     public boolean exists(String indexOrType) throws IOException {
-        return (execute(HEAD, indexOrType, false).hasSucceeded());
+        // known to exist already
+        if (metadata != null && metadata.exists(indexOrType)) {
+            return true;
+        }
+        return hasSucceeded(execute(HEAD, indexOrType, false));
     }
 
     public boolean touch(String indexOrType) throws IOException {
-        return (execute(PUT, indexOrType, false).hasSucceeded());
+        // known to exist already
+        if (metadata != null && metadata.exists(indexOrType)) {
+            return false;
+        }
+        return hasSucceeded(execute(PUT, indexOrType, false));
+    }
+
+    private static boolean hasSucceeded(Response response) {
+        // release the connection
+        IOUtils.close(response.body());
+        return response.hasSucceeded();
     }
 
     public void putMapping(String index, String mapping, byte[] bytes) throws IOException {
         // create index first (if needed) - it might return 403
         touch(index);
 
-        execute(PUT, mapping, new BytesArray(bytes));
+        IOUtils.close(execute(PUT, mapping, new BytesArray(bytes)));
     }
 
     public boolean health(String index, HEALTH health, TimeValue timeout) throws IOException {
@@ -17,22 +17,43 @@ package org.elasticsearch.hadoop.rest;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.rest.BulkResponse.Failure;
 import org.elasticsearch.hadoop.rest.dto.Node;
 import org.elasticsearch.hadoop.rest.dto.Shard;
 import org.elasticsearch.hadoop.rest.dto.mapping.Field;
 import org.elasticsearch.hadoop.serialization.BulkCommands;
 import org.elasticsearch.hadoop.serialization.Command;
+import org.elasticsearch.hadoop.serialization.FieldExtractor;
 import org.elasticsearch.hadoop.serialization.ScrollReader;
 import org.elasticsearch.hadoop.util.Assert;
+import org.elasticsearch.hadoop.util.BackoffUtils;
 import org.elasticsearch.hadoop.util.BytesArray;
 import org.elasticsearch.hadoop.util.BytesRef;
+import org.elasticsearch.hadoop.util.PagedBytesArray;
+import org.elasticsearch.hadoop.util.PagedBytesArray.PagePool;
+import org.elasticsearch.hadoop.util.RoutingUtils;
+import org.elasticsearch.hadoop.util.TrackingBytesArray;
 import org.elasticsearch.hadoop.util.unit.TimeValue;
 
 /**
@@ -42,38 +63,239 @@ public class RestRepository implements Closeable {
 
     private static Log log = LogFactory.getLog(RestRepository.class);
 
+    private static final String REJECTED_EXCEPTION = "EsRejectedExecutionException";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     // serialization artifacts
     private int bufferEntriesThreshold;
+    private int bufferBytesThreshold;
 
-    private final BytesArray data = new BytesArray(0);
-    private int dataEntries = 0;
+    private TrackingBytesArray data;
     private boolean requiresRefreshAfterBulk = false;
     private boolean executedBulkWrite = false;
     private BytesRef trivialBytesRef;
     private boolean writeInitialized = false;
 
+    // async writing - bulks are sent by a background thread using the spare buffers
+    private ExecutorService bulkExecutor;
+    private BlockingQueue<TrackingBytesArray> spareBuffers;
+    private volatile Exception asyncError;
+
+    // adaptive batch size (optional)
+    private BulkSizeController bulkSize;
+
+    // retries of rejected bulk entries
+    private int bulkRetryLimit;
+    private long bulkRetryWait;
+    private final Random jitter = new Random();
+
+    // write throttling (optional) - this instance share of the job budget
+    private TokenBucket docsThrottle;
+    private TokenBucket bytesThrottle;
+
+    // shard routing - documents are written through the repository of the node hosting their primary shard
+    private FieldExtractor routingKey;
+    private RestRepository[] shardRepositories;
+    private Collection<RestRepository> nodeRepositories;
+
     private RestClient client;
     private Resource resource;
     private Command command;
     private final Settings settings;
 
     public RestRepository(Settings settings) {
+        this(settings, new RestClient(settings));
+    }
+
+    RestRepository(Settings settings, RestClient client) {
         this.settings = settings;
-        this.client = new RestClient(settings);
+        this.client = client;
         this.resource = new Resource(settings);
     }
 
     /** postpone writing initialization since we can do only reading so there's no need to allocate buffers */
-    private void lazyInitWriting() {
+    private void lazyInitWriting() throws IOException {
         if (!writeInitialized) {
             writeInitialized = true;
 
-            data.bytes(new byte[settings.getBatchSizeInBytes()], 0);
+            int batchSize = settings.getBatchSizeInBytes();
+            boolean async = settings.getBatchWriteAsync();
+            int inFlight = (async ? settings.getBatchWriteAsyncInFlight() : 0);
+            Assert.isTrue(inFlight >= 0, String.format("Invalid number [%d] of in-flight bulk requests", inFlight));
+            // pages are allocated on demand (and reused) as the batch fills up; the pool is sized for the buffers of
+            // this repository and goes away with it
+            PagePool pool = new PagePool((long) batchSize * (1 + inFlight));
+            data = new TrackingBytesArray(new PagedBytesArray(pool));
             trivialBytesRef = new BytesRef();
+            bufferBytesThreshold = batchSize;
             bufferEntriesThreshold = settings.getBatchSizeInEntries();
             requiresRefreshAfterBulk = settings.getBatchRefreshAfterWrite();
+            bulkRetryLimit = settings.getBatchWriteRetryCount();
+            bulkRetryWait = settings.getBatchWriteRetryWait();
+
+            int instances = settings.getWriteInstances();
+            int instance = settings.getWriteInstance();
+            long docsRate = share(settings.getBatchWriteThrottleDocs(), instances, instance);
+            if (docsRate > 0) {
+                docsThrottle = new TokenBucket(docsRate);
+            }
+            long bytesRate = share(settings.getBatchWriteThrottleBytes(), instances, instance);
+            if (bytesRate > 0) {
+                bytesThrottle = new TokenBucket(bytesRate);
+            }
+            if ((docsThrottle != null || bytesThrottle != null) && log.isDebugEnabled()) {
+                log.debug(String.format("Throttling writes of instance [%d] out of [%d] to [%d] docs/s and [%d] bytes/s (0 = unlimited)",
+                        instance, instances, docsRate, bytesRate));
+            }
+
+            if (settings.getBatchSizeAdaptive()) {
+                bulkSize = new BulkSizeController(Math.min(settings.getBatchSizeAdaptiveMin(), batchSize), batchSize,
+                        settings.getBatchSizeAdaptiveLatency());
+            }
+
+            if (async) {
+                Assert.isTrue(inFlight > 0, String.format("Invalid number [%d] of in-flight bulk requests", inFlight));
+
+                spareBuffers = new ArrayBlockingQueue<TrackingBytesArray>(inFlight);
+                for (int i = 0; i < inFlight; i++) {
+                    spareBuffers.add(new TrackingBytesArray(new PagedBytesArray(pool)));
+                }
+                bulkExecutor = Executors.newSingleThreadExecutor(new BulkThreadFactory());
+
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Async bulk writing enabled; up to [%d] bulk requests in-flight", inFlight));
+                }
+            }
 
             this.command = BulkCommands.create(settings);
+
+            if (settings.getBatchWriteShardRouting()) {
+                initShardRouting();
+            }
+        }
+    }
+
+    private void initShardRouting() throws IOException {
+        routingKey = BulkCommands.routingKey(settings);
+        if (routingKey == null) {
+            log.warn("Shard routing requires the document id, parent or routing to be specified; writing documents without routing...");
+            return;
+        }
+
+        // one group per shard - the table is sized by the shard count, not by the primaries found
+        List<List<Map<String, Object>>> info = client.targetShards(resource);
+        Map<Shard, Node> primaries = primaryShards(info, true);
+        Map<String, RestRepository> repositories = new LinkedHashMap<String, RestRepository>();
+        RestRepository[] shards = new RestRepository[info.size()];
+        String index = null;
+
+        for (Entry<Shard, Node> entry : primaries.entrySet()) {
+            Shard shard = entry.getKey();
+            Node node = entry.getValue();
+
+            // routing is possible only for one (concrete) index with all its shards allocated
+            if ((index != null && !index.equals(shard.getIndex())) || shard.getName() >= shards.length) {
+                log.warn(String.format("Cannot determine the primary shards of [%s]; writing documents without routing...", resource));
+                closeRepositories(repositories.values());
+                return;
+            }
+            index = shard.getIndex();
+
+            RestRepository repository = repositories.get(node.getId());
+            if (repository == null) {
+                Settings nodeSettings = settings.copy();
+                nodeSettings.cleanHosts().setHosts(node.getIpAddress()).setPort(node.getHttpPort());
+                // routed once and refreshed once (by this repository)
+                nodeSettings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_SHARD_ROUTING, Boolean.FALSE.toString());
+                nodeSettings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_REFRESH, Boolean.FALSE.toString());
+                nodeSettings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_THROTTLE_DOCS, "0");
+                nodeSettings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_THROTTLE_BYTES, "0");
+                repository = new RestRepository(nodeSettings);
+                // the throttling applies to the instance as a whole
+                repository.docsThrottle = docsThrottle;
+                repository.bytesThrottle = bytesThrottle;
+                repositories.put(node.getId(), repository);
+            }
+            shards[shard.getName()] = repository;
+        }
+
+        if (primaries.isEmpty()) {
+            log.warn(String.format("No primary shards found for [%s]; writing documents without routing...", resource));
+            return;
+        }
+
+        // a missing (or unassigned) primary would route documents using the wrong shard count
+        for (RestRepository repository : shards) {
+            if (repository == null) {
+                log.warn(String.format("Not all primary shards of [%s] are started; writing documents without routing...", resource));
+                closeRepositories(repositories.values());
+                return;
+            }
+        }
+
+        shardRepositories = shards;
+        nodeRepositories = repositories.values();
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Routing documents to [%d] primary shards across [%d] nodes", shards.length, nodeRepositories.size()));
+        }
+    }
+
+    /**
+     * Returns the share of the given budget for the given instance (spreading the remainder across the first instances).
+     */
+    static long share(long budget, int instances, int instance) {
+        if (budget <= 0) {
+            return 0;
+        }
+        int count = Math.max(1, instances);
+        long share = budget / count + ((instance % count) < (budget % count) ? 1 : 0);
+        // never block writing completely
+        return Math.max(1, share);
+    }
+
+    private void throttle(TrackingBytesArray batch) throws IOException {
+        try {
+            long waited = 0;
+            if (docsThrottle != null) {
+                waited += docsThrottle.acquire(batch.entries());
+            }
+            if (bytesThrottle != null) {
+                waited += bytesThrottle.acquire(batch.length());
+            }
+            if (waited > 0 && log.isTraceEnabled()) {
+                log.trace(String.format("Throttled bulk of [%d] entries/[%d] bytes for [%s]", batch.entries(), batch.length(), TimeValue.timeValueMillis(waited)));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while throttling bulk request", ex);
+        }
+    }
+
+    private static void closeRepositories(Collection<RestRepository> repositories) {
+        RuntimeException failure = null;
+        // close all repositories, even if some fail
+        for (RestRepository repository : repositories) {
+            try {
+                repository.close();
+            } catch (RuntimeException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class BulkThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "es-hadoop-bulk-writer");
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
@@ -88,7 +310,7 @@ public class RestRepository implements Closeable {
         String[] scrollInfo = client.scan(query, body);
         String scrollId = scrollInfo[0];
         long totalSize = Long.parseLong(scrollInfo[1]);
-        return new ScrollQuery(this, scrollId, totalSize, reader);
+        return new ScrollQuery(this, scrollId, totalSize, reader, settings.getScrollPrefetch());
     }
 
     /**
@@ -100,7 +322,29 @@ public class RestRepository implements Closeable {
         Assert.notNull(object, "no object data given");
 
         lazyInitWriting();
-        doWriteToIndex(command.write(object));
+
+        if (shardRepositories != null) {
+            String routing = routingKey.field(object);
+            Assert.notNull(routing, String.format("[%s] cannot extract routing value from object [%s]", routingKey, object));
+            shardRepositories[RoutingUtils.shardId(routing, shardRepositories.length)].writeToIndex(object);
+            executedBulkWrite = true;
+            return;
+        }
+
+        // fail fast if a background bulk failed
+        checkAsyncError();
+
+        // serialize the object straight into the batch
+        PagedBytesArray entry = data.newEntry();
+        try {
+            command.write(object, entry);
+        } catch (RuntimeException ex) {
+            // do not send a partially written entry
+            data.discardLast();
+            throw ex;
+        }
+
+        flushIfFull();
     }
 
     /**
@@ -114,46 +358,234 @@ public class RestRepository implements Closeable {
         Assert.isTrue(ba.size() > 0, "no data given");
 
         lazyInitWriting();
+
+        if (shardRepositories != null) {
+            String routing = routing(ba);
+            Assert.notNull(routing, String.format("Cannot extract routing value from entry [%s]", ba));
+            shardRepositories[RoutingUtils.shardId(routing, shardRepositories.length)].writeProcessedToIndex(ba);
+            executedBulkWrite = true;
+            return;
+        }
         trivialBytesRef.reset();
         trivialBytesRef.add(ba);
         doWriteToIndex(trivialBytesRef);
     }
 
-    private void doWriteToIndex(BytesRef payload) throws IOException {
-        // check space first
-        if (payload.size() > data.available()) {
-            flushBatch();
+    /**
+     * Returns the value used for routing the given (serialized) bulk entry - in order, the routing, the parent or the id
+     * found in its action metadata - or null if there is none.
+     */
+    static String routing(BytesArray entry) throws IOException {
+        String routing = null, parent = null, id = null;
+
+        JsonParser parser = JSON_FACTORY.createJsonParser(entry.bytes(), 0, entry.size());
+        try {
+            // {"<action>":{<metadata>}}
+            if (parser.nextToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME
+                    || parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            for (JsonToken token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                    if ("_routing".equals(name)) {
+                        routing = parser.getText();
+                    }
+                    else if ("_parent".equals(name)) {
+                        parent = parser.getText();
+                    }
+                    else if ("_id".equals(name)) {
+                        id = parser.getText();
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
         }
 
-        payload.copyTo(data);
+        return (routing != null ? routing : (parent != null ? parent : id));
+    }
+
+    private void doWriteToIndex(BytesRef payload) throws IOException {
+        // fail fast if a background bulk failed
+        checkAsyncError();
+
+        data.copyFrom(payload);
         payload.reset();
 
-        dataEntries++;
-        if (bufferEntriesThreshold > 0 && dataEntries >= bufferEntriesThreshold) {
+        flushIfFull();
+    }
+
+    // entries are written in place (their size is not known upfront) so the batch is sent once it reaches its limit
+    private void flushIfFull() throws IOException {
+        int limit = (bulkSize != null ? bulkSize.size() : bufferBytesThreshold);
+        if (data.length() >= limit || (bufferEntriesThreshold > 0 && data.entries() >= bufferEntriesThreshold)) {
             flushBatch();
         }
     }
 
     private void flushBatch() throws IOException {
         if (log.isDebugEnabled()) {
-            log.debug(String.format("Flushing batch of [%d] bytes/[%s] entries", data.size(), dataEntries));
+            log.debug(String.format("Flushing batch of [%d] bytes/[%s] entries", data.length(), data.entries()));
         }
 
-        client.bulk(resource, data);
-        data.reset();
-        dataEntries = 0;
+        if (bulkExecutor != null) {
+            flushBatchAsync();
+        }
+        else {
+            sendBatch(data);
+            data.reset();
+        }
         executedBulkWrite = true;
     }
 
+    /**
+     * Sends the given batch as a bulk request. Entries rejected by Elasticsearch because it is too busy are retried (on their own)
+     * while any other failure is fatal.
+     */
+    private void sendBatch(TrackingBytesArray batch) throws IOException {
+        for (int retry = 0;; retry++) {
+            throttle(batch);
+
+            long start = System.currentTimeMillis();
+            BulkResponse response = client.bulk(resource, batch.bytes());
+            long took = System.currentTimeMillis() - start;
+
+            if (!response.hasFailures()) {
+                if (bulkSize != null) {
+                    bulkSize.update(took, batch.entries(), 0);
+                }
+                return;
+            }
+
+            List<Integer> rejected = new ArrayList<Integer>(response.failures().size());
+            for (Failure failure : response.failures()) {
+                if (!isRejection(failure)) {
+                    throw new IllegalStateException(String.format(
+                            "Bulk request on index [%s] failed; at least one error reported [%s]", resource.indexAndType(), failure.message()));
+                }
+                rejected.add(failure.position());
+            }
+
+            if (bulkSize != null) {
+                bulkSize.update(took, batch.entries(), rejected.size());
+            }
+
+            if (retry >= bulkRetryLimit) {
+                throw new IllegalStateException(String.format(
+                        "Bulk request on index [%s] failed; [%d] entries still rejected after [%d] retries [%s]",
+                        resource.indexAndType(), rejected.size(), retry, response.failures().get(0).message()));
+            }
+
+            long wait = BackoffUtils.backoff(bulkRetryWait, retry, bulkRetryLimit, jitter);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("[%d] out of [%d] bulk entries rejected by Elasticsearch - retrying them in %s",
+                        rejected.size(), batch.entries(), TimeValue.timeValueMillis(wait)));
+            }
+
+            // keep only the rejected entries
+            batch.retain(rejected);
+
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to retry rejected bulk entries", ex);
+            }
+        }
+    }
+
+    private static boolean isRejection(Failure failure) {
+        // ES 1.0+ reports the status for each entry; older versions only the exception message
+        return (failure.status() == HttpStatus.TOO_MANY_REQUESTS || (failure.status() == 0 && failure.message().startsWith(REJECTED_EXCEPTION)));
+    }
+
+    private void flushBatchAsync() throws IOException {
+        checkAsyncError();
+
+        final TrackingBytesArray batch = data;
+        try {
+            // blocks while the maximum number of bulks are in-flight
+            data = spareBuffers.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for in-flight bulk requests", ex);
+        }
+
+        bulkExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // once a bulk fails, the task fails as well so there's no point in sending the rest
+                    if (asyncError == null) {
+                        sendBatch(batch);
+                    }
+                } catch (Exception ex) {
+                    if (asyncError == null) {
+                        asyncError = ex;
+                    }
+                } finally {
+                    batch.reset();
+                    spareBuffers.offer(batch);
+                }
+            }
+        });
+    }
+
+    private void awaitAsyncBatches() throws IOException {
+        bulkExecutor.shutdown();
+        try {
+            bulkExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for in-flight bulk requests", ex);
+        }
+        checkAsyncError();
+    }
+
+    private void checkAsyncError() throws IOException {
+        Exception ex = asyncError;
+        if (ex != null) {
+            String message = "Background bulk request failed; " + ex.getMessage();
+            if (ex instanceof IOException) {
+                throw new IOException(message, ex);
+            }
+            throw new IllegalStateException(message, ex);
+        }
+    }
+
     @Override
     public void close() {
         try {
             if (log.isDebugEnabled()) {
                 log.debug("Closing repository and connection to Elasticsearch ...");
             }
-            if (data.size() > 0) {
+            if (nodeRepositories != null) {
+                Collection<RestRepository> repositories = nodeRepositories;
+                nodeRepositories = null;
+                closeRepositories(repositories);
+            }
+            if (bulkExecutor != null) {
+                try {
+                    if (data.length() > 0) {
+                        flushBatch();
+                    }
+                    awaitAsyncBatches();
+                } catch (IOException ex) {
+                    // the in-flight batches are lost - fail instead of silently dropping the data
+                    throw new IllegalStateException("Cannot flush in-flight data batches", ex);
+                }
+            }
+            else if (data != null && data.length() > 0) {
                 flushBatch();
             }
+            if (bulkSize != null && log.isInfoEnabled()) {
+                log.info(String.format("Adaptive batching of [%s] ended with %s", resource, bulkSize));
+            }
             if (requiresRefreshAfterBulk && executedBulkWrite) {
                 // refresh batch
                 client.refresh(resource);
@@ -164,9 +596,22 @@ public class RestRepository implements Closeable {
             }
         } catch (IOException ex) {
             log.warn("Cannot flush data batch", ex);
+        } finally {
+            if (bulkExecutor != null) {
+                bulkExecutor.shutdownNow();
+                bulkExecutor = null;
+            }
+            // return the buffer pages to the pool
+            if (data != null) {
+                data.release();
+            }
+            if (spareBuffers != null) {
+                for (TrackingBytesArray spare : spareBuffers) {
+                    spare.release();
+                }
+            }
+            client.close();
         }
-
-        client.close();
     }
 
     public RestClient getRestClient() {
@@ -195,9 +640,11 @@ public class RestRepository implements Closeable {
     }
 
     public Map<Shard, Node> getTargetPrimaryShards() throws IOException {
-        Map<String, Node> nodes = client.getNodes();
+        return primaryShards(client.targetShards(resource), false);
+    }
 
-        List<List<Map<String, Object>>> info = client.targetShards(resource);
+    private Map<Shard, Node> primaryShards(List<List<Map<String, Object>>> info, boolean startedOnly) throws IOException {
+        Map<String, Node> nodes = client.getNodes();
         Map<Shard, Node> shards = new LinkedHashMap<Shard, Node>(info.size());
 
         for (List<Map<String, Object>> shardGroup : info) {
@@ -205,6 +652,9 @@ public class RestRepository implements Closeable {
             for (Map<String, Object> shardData : shardGroup) {
                 Shard shard = new Shard(shardData);
                 if (shard.isPrimary()) {
+                    if (startedOnly && !shard.getState().isStarted()) {
+                        break;
+                    }
                     Node node = nodes.get(shard.getNode());
                     Assert.notNull(node, "Cannot find node with id [" + shard.getNode() + "]");
                     shards.put(shard, node);
@@ -215,10 +665,52 @@ public class RestRepository implements Closeable {
         return shards;
     }
 
+    /**
+     * Returns the number of documents and the store size (in bytes) of the given shards, as allocated on their nodes.
+     * Shards without statistics are not included.
+     *
+     * @param shards target shards
+     * @return docs count and store size (in this order) for each shard
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Shard, long[]> getShardStats(Iterable<Shard> shards) throws IOException {
+        Map<String, Map<String, Object>> indices = client.shardStats(resource);
+        Map<Shard, long[]> stats = new LinkedHashMap<Shard, long[]>();
+
+        for (Shard shard : shards) {
+            Map<String, Object> index = indices.get(shard.getIndex());
+            if (index == null) {
+                continue;
+            }
+            Map<String, List<Map<String, Object>>> shardsStats = (Map<String, List<Map<String, Object>>>) index.get("shards");
+            List<Map<String, Object>> copies = (shardsStats != null ? shardsStats.get(shard.getName().toString()) : null);
+            if (copies == null) {
+                continue;
+            }
+            // find the stats of the shard copy (since replicas might differ slightly)
+            for (Map<String, Object> copy : copies) {
+                Map<String, Object> routing = (Map<String, Object>) copy.get("routing");
+                if (routing != null && shard.getNode().equals(routing.get("node"))) {
+                    Map<String, Object> docs = (Map<String, Object>) copy.get("docs");
+                    Map<String, Object> store = (Map<String, Object>) copy.get("store");
+                    long count = (docs != null ? ((Number) docs.get("count")).longValue() : 0);
+                    long size = (store != null ? ((Number) store.get("size_in_bytes")).longValue() : 0);
+                    stats.put(shard, new long[] { count, size });
+                    break;
+                }
+            }
+        }
+        return stats;
+    }
+
     public Field getMapping() throws IOException {
         return Field.parseField((Map<String, Object>) client.getMapping(resource.mapping()));
     }
 
+    Map<String, Object> search(String query, BytesArray body) throws IOException {
+        return client.search(query, body);
+    }
+
     public List<Object[]> scroll(String scrollId, ScrollReader reader) throws IOException {
         return reader.read(client.scroll(scrollId));
     }
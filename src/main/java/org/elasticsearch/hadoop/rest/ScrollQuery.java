@@ -17,17 +17,24 @@ package org.elasticsearch.hadoop.rest;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.elasticsearch.hadoop.serialization.ScrollReader;
 
 /**
  * Result streaming data from a ElasticSearch query using the scan/scroll. Performs batching underneath to retrieve data in chunks.
+ * Optionally, the next batches are fetched in the background (prefetched) while the current one is consumed.
  */
 public class ScrollQuery implements Iterator<Object>, Closeable {
 
+    // marks the end of the prefetched batches
+    private static final List<Object[]> END = new ArrayList<Object[]>(0);
+
     private RestRepository client;
     private String scrollId;
     private List<Object[]> batch = Collections.emptyList();
@@ -39,17 +46,27 @@ public class ScrollQuery implements Iterator<Object>, Closeable {
 
     private final ScrollReader reader;
 
-    ScrollQuery(RestRepository client, String scrollId, long size, ScrollReader reader) {
+    private Prefetcher prefetcher;
+
+    ScrollQuery(RestRepository client, String scrollId, long size, ScrollReader reader, int prefetch) {
         this.client = client;
         this.scrollId = scrollId;
         this.size = size;
         this.reader = reader;
+
+        if (prefetch > 0 && size > 0) {
+            prefetcher = new Prefetcher(prefetch);
+            prefetcher.start();
+        }
     }
 
     @Override
     public void close() throws IOException {
         finished = true;
         batch = Collections.emptyList();
+        if (prefetcher != null) {
+            prefetcher.stop();
+        }
         client.close();
     }
 
@@ -64,16 +81,14 @@ public class ScrollQuery implements Iterator<Object>, Closeable {
                 return false;
             }
 
-            try {
-                batch = client.scroll(scrollId, reader);
-            } catch (IOException ex) {
-                throw new IllegalStateException("Cannot retrieve scroll [" + scrollId + "]", ex);
-            }
-            read += batch.size();
-            if (batch.isEmpty()) {
+            batch = (prefetcher != null ? prefetcher.next() : fetch());
+
+            if (batch == null || batch.isEmpty()) {
                 finished = true;
+                batch = Collections.emptyList();
                 return false;
             }
+            read += batch.size();
             // reset index
             batchIndex = 0;
         }
@@ -81,6 +96,14 @@ public class ScrollQuery implements Iterator<Object>, Closeable {
         return true;
     }
 
+    private List<Object[]> fetch() {
+        try {
+            return client.scroll(scrollId, reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot retrieve scroll [" + scrollId + "]", ex);
+        }
+    }
+
     public long getSize() {
         return size;
     }
@@ -105,4 +128,87 @@ public class ScrollQuery implements Iterator<Object>, Closeable {
         builder.append("ScrollQuery [scrollId=").append(scrollId).append("]");
         return builder.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches (and parses) the scroll batches on a background thread into a bounded queue.
+     */
+    private class Prefetcher implements Runnable {
+
+        private final BlockingQueue<List<Object[]>> batches;
+        private final Thread thread;
+        private volatile boolean stopped = false;
+        private volatile RuntimeException error;
+
+        Prefetcher(int depth) {
+            batches = new ArrayBlockingQueue<List<Object[]>>(depth);
+            thread = new Thread(this, "es-hadoop-scroll-prefetch");
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            long fetched = 0;
+            try {
+                while (!stopped && fetched < size) {
+                    List<Object[]> page = fetch();
+                    if (page == null || page.isEmpty()) {
+                        break;
+                    }
+                    fetched += page.size();
+                    batches.put(page);
+                }
+            } catch (InterruptedException ex) {
+                // stopped
+            } catch (RuntimeException ex) {
+                if (!stopped) {
+                    error = ex;
+                }
+            } finally {
+                if (!stopped) {
+                    // room for the marker is guaranteed since the consumer keeps draining the queue
+                    try {
+                        batches.put(END);
+                    } catch (InterruptedException ex) {
+                        // stopped
+                    }
+                }
+            }
+        }
+
+        List<Object[]> next() {
+            List<Object[]> page;
+            try {
+                page = batches.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for scroll [" + scrollId + "]", ex);
+            }
+
+            if (page == END) {
+                // keep the marker around for subsequent calls
+                batches.offer(END);
+                if (error != null) {
+                    throw error;
+                }
+                return null;
+            }
+            return page;
+        }
+
+        void stop() {
+            stopped = true;
+            thread.interrupt();
+            batches.clear();
+            // wait for any in-flight request to finish before the client gets closed
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -15,10 +15,13 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import java.util.Random;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.serialization.SettingsAware;
+import org.elasticsearch.hadoop.util.BackoffUtils;
 import org.elasticsearch.hadoop.util.unit.TimeValue;
 
 public class SimpleHttpRetryPolicy implements HttpRetryPolicy, SettingsAware {
@@ -27,6 +30,7 @@ public class SimpleHttpRetryPolicy implements HttpRetryPolicy, SettingsAware {
 
     private int retryLimit;
     private long retryTime;
+    private final Random jitter = new Random();
 
     private class SimpleRetry implements Retry {
         private int retryCount = 0;
@@ -43,11 +47,13 @@ public class SimpleHttpRetryPolicy implements HttpRetryPolicy, SettingsAware {
             case HttpStatus.SERVICE_UNAVAILABLE:
                 if (++retryCount < retryLimit) {
                     try {
+                        // back off (with jitter) so that clients rejected together do not retry together
+                        long wait = BackoffUtils.backoff(retryTime, retryCount - 1, retryLimit - 1, jitter);
                         if (log.isDebugEnabled()) {
-                            log.debug(String.format("Elasticsearch service unavailable - retrying in %s seconds",
-                                    TimeValue.timeValueSeconds(retryTime)));
+                            log.debug(String.format("Elasticsearch service unavailable - retrying in %s",
+                                    TimeValue.timeValueMillis(wait)));
                         }
-                        Thread.sleep(retryTime);
+                        Thread.sleep(wait);
                         return true;
                     } catch (InterruptedException e) {
                         if (log.isDebugEnabled()) {
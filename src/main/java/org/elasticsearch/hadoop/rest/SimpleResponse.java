@@ -15,16 +15,32 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
 public class SimpleResponse implements Response {
 
     private final int status;
-    private final byte[] body;
+    private final InputStream body;
     private final CharSequence uri;
+    private final Map<String, String> headers;
+
+    public SimpleResponse(int status, InputStream body, CharSequence uri) {
+        this(status, body, uri, Collections.<String, String> emptyMap());
+    }
 
-    public SimpleResponse(int status, byte[] body, CharSequence uri) {
+    /**
+     * Creates a new response.
+     *
+     * @param headers response headers, keyed by their lower-case name
+     */
+    public SimpleResponse(int status, InputStream body, CharSequence uri, Map<String, String> headers) {
         this.status = status;
         this.body = body;
         this.uri = uri;
+        this.headers = headers;
     }
 
     @Override
@@ -33,7 +49,7 @@ public class SimpleResponse implements Response {
     }
 
     @Override
-    public byte[] body() {
+    public InputStream body() {
         return body;
     }
 
@@ -42,6 +58,11 @@ public class SimpleResponse implements Response {
         return uri;
     }
 
+    @Override
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
     @Override
     public boolean isInformal() {
         return HttpStatus.isInformal(status);
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.elasticsearch.hadoop.util.Assert;
+
+/**
+ * Token bucket limiting the rate (per second) of some resource (documents or bytes). The bucket holds at most one second worth of tokens
+ * and starts empty so that tasks starting at the same time do not send a burst.
+ * Requests larger than the bucket are allowed but put it into 'debt', delaying the following requests accordingly.
+ */
+class TokenBucket {
+
+    private final double ratePerMillis;
+    private final double capacity;
+
+    private double tokens = 0;
+    private long lastRefill;
+
+    TokenBucket(long ratePerSecond) {
+        Assert.isTrue(ratePerSecond > 0, "Invalid rate " + ratePerSecond);
+        this.ratePerMillis = ratePerSecond / 1000d;
+        this.capacity = ratePerSecond;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    /**
+     * Acquires the given number of tokens, waiting (if needed) for the bucket to refill.
+     *
+     * @param amount number of tokens
+     * @return the time waited (in millis)
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized long acquire(long amount) throws InterruptedException {
+        refill(System.currentTimeMillis());
+        tokens -= amount;
+
+        if (tokens >= 0) {
+            return 0;
+        }
+
+        long wait = (long) Math.ceil(-tokens / ratePerMillis);
+        Thread.sleep(wait);
+        return wait;
+    }
+
+    // package-private for testing
+    void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMillis);
+            lastRefill = now;
+        }
+    }
+
+    // package-private for testing
+    double tokens() {
+        return tokens;
+    }
+}
@@ -19,16 +19,16 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.apache.commons.httpclient.methods.RequestEntity;
-import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.ByteSequence;
 
 /**
- * Wrapper around byte arrays that are not fully filled up.
+ * Wrapper around byte sequences (such as byte arrays that are not fully filled up).
  */
 class BytesArrayRequestEntity implements RequestEntity {
 
-    private final BytesArray ba;
+    private final ByteSequence ba;
 
-    public BytesArrayRequestEntity(BytesArray ba) {
+    public BytesArrayRequestEntity(ByteSequence ba) {
         this.ba = ba;
     }
 
@@ -39,7 +39,8 @@ class BytesArrayRequestEntity implements RequestEntity {
 
     @Override
     public void writeRequest(OutputStream out) throws IOException {
-        out.write(ba.bytes(), 0, ba.size());
+        // stream the content as is (page by page in case of paged buffers)
+        ba.writeTo(out);
     }
 
     @Override
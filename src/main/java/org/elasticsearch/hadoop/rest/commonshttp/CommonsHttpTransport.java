@@ -16,8 +16,15 @@
 package org.elasticsearch.hadoop.rest.commonshttp;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
@@ -40,7 +47,7 @@ import org.elasticsearch.hadoop.rest.Request;
 import org.elasticsearch.hadoop.rest.Response;
 import org.elasticsearch.hadoop.rest.SimpleResponse;
 import org.elasticsearch.hadoop.rest.Transport;
-import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.ByteSequence;
 import org.elasticsearch.hadoop.util.StringUtils;
 
 /**
@@ -49,15 +56,30 @@ import org.elasticsearch.hadoop.util.StringUtils;
 public class CommonsHttpTransport implements Transport {
 
     private static Log log = LogFactory.getLog(CommonsHttpTransport.class);
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
     private final HttpClient client;
+    private final boolean compression;
 
     public CommonsHttpTransport(Settings settings, String host) {
+        compression = settings.getHttpCompression();
+
         HttpClientParams params = new HttpClientParams();
         params.setParameter(HttpMethodParams.RETRY_HANDLER,
                 new DefaultHttpMethodRetryHandler(settings.getHttpRetries(), false));
         params.setConnectionManagerTimeout(settings.getHttpTimeout());
         params.setSoTimeout((int) settings.getHttpTimeout());
-        client = new HttpClient(params);
+
+        if (settings.getHttpPool()) {
+            client = new HttpClient(params, PooledConnectionManager.get(settings));
+        }
+        else {
+            client = new HttpClient(params);
+            HttpConnectionManagerParams connectionParams = client.getHttpConnectionManager().getParams();
+            // make sure to disable Nagle's protocol
+            connectionParams.setTcpNoDelay(true);
+        }
 
         HostConfiguration hostConfig = new HostConfiguration();
 
@@ -67,10 +89,6 @@ public class CommonsHttpTransport implements Transport {
             throw new IllegalArgumentException("Invalid target URI " + host, ex);
         }
         client.setHostConfiguration(hostConfig);
-
-        HttpConnectionManagerParams connectionParams = client.getHttpConnectionManager().getParams();
-        // make sure to disable Nagle's protocol
-        connectionParams.setTcpNoDelay(true);
     }
 
     @Override
@@ -110,23 +128,74 @@ public class CommonsHttpTransport implements Transport {
             http.setQueryString(params.toString());
         }
 
-        BytesArray ba = request.body();
+        ByteSequence ba = request.body();
         if (ba != null && ba.size() > 0) {
             EntityEnclosingMethod entityMethod = (EntityEnclosingMethod) http;
-            entityMethod.setRequestEntity(new BytesArrayRequestEntity(ba));
-            entityMethod.setContentChunked(false);
+            if (compression) {
+                entityMethod.setRequestEntity(new GzipBytesArrayRequestEntity(ba));
+                entityMethod.setRequestHeader(CONTENT_ENCODING, GzipBytesArrayRequestEntity.ENCODING);
+                entityMethod.setContentChunked(true);
+            }
+            else {
+                entityMethod.setRequestEntity(new BytesArrayRequestEntity(ba));
+                entityMethod.setContentChunked(false);
+            }
         }
 
+        if (compression) {
+            http.setRequestHeader(ACCEPT_ENCODING, "gzip, deflate");
+        }
+
+        boolean release = true;
         try {
             client.executeMethod(http);
-            return new SimpleResponse(http.getStatusCode(), http.getResponseBody(), request.uri());
+            InputStream body = (compression ? decompress(http) : http.getResponseBodyAsStream());
+            Map<String, String> headers = headers(http);
+            // no body (such as HEAD), the connection can be released right away
+            if (body == null) {
+                return new SimpleResponse(http.getStatusCode(), null, request.uri(), headers);
+            }
+            // otherwise the connection is released once the body is read
+            release = false;
+            return new SimpleResponse(http.getStatusCode(), new ResponseInputStream(body, http), request.uri(), headers);
         } finally {
-            http.releaseConnection();
+            if (release) {
+                http.releaseConnection();
+            }
+        }
+    }
+
+    private static Map<String, String> headers(HttpMethod http) {
+        Header[] headers = http.getResponseHeaders();
+        Map<String, String> map = new LinkedHashMap<String, String>(headers.length);
+        for (Header header : headers) {
+            map.put(header.getName().toLowerCase(Locale.ENGLISH), header.getValue());
+        }
+        return map;
+    }
+
+    private static InputStream decompress(HttpMethod http) throws IOException {
+        InputStream in = http.getResponseBodyAsStream();
+        if (in == null) {
+            return null;
+        }
+
+        Header encoding = http.getResponseHeader(CONTENT_ENCODING);
+        if (encoding != null) {
+            String value = encoding.getValue();
+            if ("gzip".equalsIgnoreCase(value)) {
+                in = new GZIPInputStream(in);
+            }
+            else if ("deflate".equalsIgnoreCase(value)) {
+                in = new InflaterInputStream(in);
+            }
         }
+        return in;
     }
 
     @Override
     public void close() {
+        // pooled connections are shared and thus stay open (until they become idle)
         HttpConnectionManager manager = client.getHttpConnectionManager();
         if (manager instanceof SimpleHttpConnectionManager) {
             try {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest.commonshttp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.elasticsearch.hadoop.util.ByteSequence;
+
+/**
+ * Request entity that compresses (gzip) the given byte array while streaming it to the server.
+ * As the compressed size is not known upfront, the content is sent in chunks.
+ */
+class GzipBytesArrayRequestEntity implements RequestEntity {
+
+    static final String ENCODING = "gzip";
+
+    private final ByteSequence ba;
+
+    public GzipBytesArrayRequestEntity(ByteSequence ba) {
+        this.ba = ba;
+    }
+
+    @Override
+    public long getContentLength() {
+        // unknown
+        return -1;
+    }
+
+    @Override
+    public void writeRequest(OutputStream out) throws IOException {
+        FastGZIPOutputStream gzip = new FastGZIPOutputStream(out);
+        ba.writeTo(gzip);
+        // do NOT close the stream as that would close the underlying connection as well
+        gzip.finish();
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json; charset=UTF-8";
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * GZIP stream favoring speed over the compression ratio - JSON compresses well even on the lowest setting.
+     */
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, 8 * 1024);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            super.finish();
+            // release the native zlib resources right away instead of waiting for the finalizer
+            def.end();
+        }
+    }
+}
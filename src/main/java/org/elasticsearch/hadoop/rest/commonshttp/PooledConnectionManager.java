@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest.commonshttp;
+
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.unit.TimeValue;
+
+/**
+ * JVM-wide pool of persistent (keep-alive) HTTP connections, shared by all {@link CommonsHttpTransport}s.
+ * Since multiple tasks/operators can run inside the same JVM (JVM reuse, Cascading/Pig/Hive pipelines), this avoids
+ * opening a new connection (and doing a TCP handshake) each time a client talks to the same node.
+ *
+ * The pool is configured by the first settings that create it (later, different settings are ignored with a warning); idle
+ * connections are evicted by a background (daemon) thread. Disabled by default.
+ */
+abstract class PooledConnectionManager {
+
+    private static final Log log = LogFactory.getLog(PooledConnectionManager.class);
+
+    private static MultiThreadedHttpConnectionManager manager;
+    private static IdleConnectionTimeoutThread evictionThread;
+    private static long idleTimeout;
+    private static boolean warned = false;
+
+    static synchronized HttpConnectionManager get(Settings settings) {
+        if (manager == null) {
+            manager = new MultiThreadedHttpConnectionManager();
+
+            HttpConnectionManagerParams params = manager.getParams();
+            params.setDefaultMaxConnectionsPerHost(settings.getHttpPoolMaxPerHost());
+            params.setMaxTotalConnections(settings.getHttpPoolMaxTotal());
+            // make sure to disable Nagle's protocol
+            params.setTcpNoDelay(true);
+            // connections might be closed by the server while being idle in the pool
+            params.setStaleCheckingEnabled(true);
+
+            idleTimeout = settings.getHttpPoolIdleTimeout();
+            evictionThread = new IdleConnectionTimeoutThread();
+            evictionThread.setName("es-hadoop-http-idle-eviction");
+            evictionThread.setConnectionTimeout(idleTimeout);
+            evictionThread.setTimeoutInterval(Math.max(idleTimeout / 2, 1000));
+            evictionThread.addConnectionManager(manager);
+            evictionThread.start();
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Created HTTP connection pool [max per host=%d, max total=%d, idle timeout=%s]",
+                        params.getDefaultMaxConnectionsPerHost(), params.getMaxTotalConnections(), TimeValue.timeValueMillis(idleTimeout)));
+            }
+        }
+        else if (!warned) {
+            HttpConnectionManagerParams params = manager.getParams();
+            if (params.getDefaultMaxConnectionsPerHost() != settings.getHttpPoolMaxPerHost()
+                    || params.getMaxTotalConnections() != settings.getHttpPoolMaxTotal()
+                    || idleTimeout != settings.getHttpPoolIdleTimeout()) {
+                warned = true;
+                log.warn(String.format("HTTP connection pool already created in this JVM [max per host=%d, max total=%d, idle timeout=%s]; "
+                        + "ignoring the different pool settings [max per host=%d, max total=%d, idle timeout=%s]",
+                        params.getDefaultMaxConnectionsPerHost(), params.getMaxTotalConnections(), TimeValue.timeValueMillis(idleTimeout),
+                        settings.getHttpPoolMaxPerHost(), settings.getHttpPoolMaxTotal(), TimeValue.timeValueMillis(settings.getHttpPoolIdleTimeout())));
+            }
+        }
+        return manager;
+    }
+}
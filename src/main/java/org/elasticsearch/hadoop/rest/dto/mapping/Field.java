@@ -15,6 +15,9 @@
  */
 package org.elasticsearch.hadoop.rest.dto.mapping;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +33,9 @@ import org.elasticsearch.hadoop.serialization.FieldType;
 @SuppressWarnings("serial")
 public class Field implements Serializable {
 
+    // version of the binary format
+    private static final byte VERSION = 1;
+
     private final String name;
     private final FieldType type;
     private final Field[] properties;
@@ -75,16 +81,14 @@ public class Field implements Serializable {
     }
 
     static void add(Map<String, FieldType> fields, Field field, String parentName) {
+        String name = (parentName != null ? parentName + "." + field.name() : field.name());
         if (FieldType.OBJECT == field.type()) {
-            if (parentName != null) {
-                parentName = parentName + "." + field.name();
-            }
             for (Field nestedField : field.properties()) {
-                add(fields, nestedField, parentName);
+                add(fields, nestedField, name);
             }
         }
         else {
-            fields.put(field.name(), field.type());
+            fields.put(name, field.type());
         }
     }
 
@@ -141,6 +145,113 @@ public class Field implements Serializable {
         throw new IllegalArgumentException("invalid map received " + entry);
     }
 
+    /**
+     * Writes the field (including its properties) in a compact, versioned binary format: a table with the distinct
+     * names and types used by the tree followed by the tree itself (pre-order) with each field encoded as indices in
+     * the table and the number of properties, all as variable-length ints.
+     *
+     * @param out output
+     * @throws IOException
+     */
+    public void write(DataOutput out) throws IOException {
+        Map<String, Integer> table = new LinkedHashMap<String, Integer>();
+        intern(this, table);
+
+        out.writeByte(VERSION);
+        writeVInt(out, table.size());
+        for (String entry : table.keySet()) {
+            out.writeUTF(entry);
+        }
+        write(this, table, out);
+    }
+
+    /**
+     * Reads a field written through {@link #write(DataOutput)}.
+     *
+     * @param in input
+     * @return the field
+     * @throws IOException
+     */
+    public static Field read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported mapping format version [%d]", version));
+        }
+        String[] table = new String[readVInt(in)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readUTF();
+        }
+        return read(table, in);
+    }
+
+    private static void intern(Field field, Map<String, Integer> table) {
+        intern(field.name, table);
+        intern((field.type != null ? field.type.name() : null), table);
+        if (field.properties != null) {
+            for (Field property : field.properties) {
+                intern(property, table);
+            }
+        }
+    }
+
+    private static void intern(String entry, Map<String, Integer> table) {
+        if (entry != null && !table.containsKey(entry)) {
+            table.put(entry, Integer.valueOf(table.size()));
+        }
+    }
+
+    // 0 is reserved for null
+    private static int index(String entry, Map<String, Integer> table) {
+        return (entry != null ? table.get(entry).intValue() + 1 : 0);
+    }
+
+    private static void write(Field field, Map<String, Integer> table, DataOutput out) throws IOException {
+        writeVInt(out, index(field.name, table));
+        writeVInt(out, index((field.type != null ? field.type.name() : null), table));
+        // 0 means no properties (as opposed to empty)
+        writeVInt(out, (field.properties != null ? field.properties.length + 1 : 0));
+        if (field.properties != null) {
+            for (Field property : field.properties) {
+                write(property, table, out);
+            }
+        }
+    }
+
+    private static Field read(String[] table, DataInput in) throws IOException {
+        int name = readVInt(in);
+        int type = readVInt(in);
+        int size = readVInt(in);
+
+        Field[] properties = null;
+        if (size > 0) {
+            properties = new Field[size - 1];
+            for (int i = 0; i < properties.length; i++) {
+                properties[i] = read(table, in);
+            }
+        }
+        return new Field((name > 0 ? table[name - 1] : null), (type > 0 ? FieldType.valueOf(table[type - 1]) : null), properties);
+    }
+
+    private static void writeVInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+
     public String toString() {
         return String.format("%s=%s", name, (type == FieldType.OBJECT ? Arrays.toString(properties) : type));
     }
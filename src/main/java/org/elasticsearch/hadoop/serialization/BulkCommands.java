@@ -17,6 +17,7 @@ package org.elasticsearch.hadoop.serialization;
 
 import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.ObjectUtils;
 
 /**
  * Handles the instantiation of bulk commands.
@@ -43,4 +44,35 @@ public abstract class BulkCommands {
 
         return factory.createCommand();
     }
+
+    /**
+     * Returns the extractor of the value used by Elasticsearch for routing a document to its shard (in order, the routing, the parent or the id)
+     * or null if none is configured (and thus documents cannot be routed on the client side).
+     *
+     * @param settings configuration
+     * @return routing value extractor
+     */
+    public static FieldExtractor routingKey(Settings settings) {
+        String property = null;
+        String className = null;
+
+        if (settings.getMappingRouting() != null) {
+            property = ConfigurationOptions.ES_MAPPING_ROUTING;
+            className = settings.getMappingRoutingExtractorClassName();
+        }
+        else if (settings.getMappingParent() != null) {
+            property = ConfigurationOptions.ES_MAPPING_PARENT;
+            className = settings.getMappingParentExtractorClassName();
+        }
+        else if (settings.getMappingId() != null) {
+            property = ConfigurationOptions.ES_MAPPING_ID;
+            className = settings.getMappingIdExtractorClassName();
+        }
+        else {
+            return null;
+        }
+
+        settings.setProperty(ConstantFieldExtractor.PROPERTY, property);
+        return ObjectUtils.<FieldExtractor> instantiate(className, settings);
+    }
 }
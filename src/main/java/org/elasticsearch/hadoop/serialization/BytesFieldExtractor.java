@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.serialization;
+
+import org.elasticsearch.hadoop.util.BytesArray;
+
+/**
+ * {@link FieldExtractor} that writes the field value directly as (UTF-8) bytes, avoiding the creation of an intermediate String for each object.
+ */
+public interface BytesFieldExtractor extends FieldExtractor {
+
+    /**
+     * Replaces the content of the given array with the value of the field.
+     *
+     * @param target object to extract the field from
+     * @param to array receiving the value
+     * @return true if the field was found, false otherwise
+     */
+    boolean field(Object target, BytesArray to);
+}
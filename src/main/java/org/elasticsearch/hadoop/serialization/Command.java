@@ -16,6 +16,7 @@
 package org.elasticsearch.hadoop.serialization;
 
 import org.elasticsearch.hadoop.util.BytesRef;
+import org.elasticsearch.hadoop.util.PagedBytesArray;
 
 
 /**
@@ -33,4 +34,13 @@ public interface Command {
      * @return
      */
     BytesRef write(Object object);
+
+    /**
+     * Serializes the given object directly into the given buffer, avoiding any intermediate copy.
+     * In case of failure, the buffer may contain a partially written entry.
+     *
+     * @param object
+     * @param to buffer to append the serialized object to
+     */
+    void write(Object object, PagedBytesArray to);
 }
@@ -16,27 +16,53 @@
 package org.elasticsearch.hadoop.serialization;
 
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.StringUtils;
 
-public class ConstantFieldExtractor implements FieldExtractor, SettingsAware {
+public class ConstantFieldExtractor implements BytesFieldExtractor, SettingsAware {
 
     public static final String PROPERTY = "org.elasticsearch.hadoop.serialization.ConstantFieldExtractor.property";
     private String fieldName;
     private String value;
+    private byte[] valueBytes;
 
     @Override
     public final String field(Object target) {
         return (value != null ? value : extractField(target));
     }
 
+    @Override
+    public final boolean field(Object target, BytesArray to) {
+        if (value != null) {
+            to.reset();
+            to.add(valueBytes);
+            return true;
+        }
+        return extractField(target, to);
+    }
+
     protected String extractField(Object target) {
         return null;
     }
 
+    /**
+     * Writes the field value into the given array. Subclasses should override this method to avoid going through {@link #extractField(Object)}.
+     */
+    protected boolean extractField(Object target, BytesArray to) {
+        String field = extractField(target);
+        if (field == null) {
+            return false;
+        }
+        to.bytes(field);
+        return true;
+    }
+
     @Override
     public void setSettings(Settings settings) {
         fieldName = property(settings);
         if (fieldName.startsWith("<") && fieldName.endsWith(">")) {
             this.value = fieldName.substring(1, fieldName.length() - 1);
+            this.valueBytes = value.getBytes(StringUtils.UTF_8);
         }
     }
 
@@ -42,6 +42,10 @@ public class ContentBuilder {
         return new ContentBuilder(new JacksonJsonGenerator(bos), writer);
     }
 
+    public static ContentBuilder generate(Generator generator, ValueWriter writer) {
+        return new ContentBuilder(generator, writer);
+    }
+
     public ContentBuilder nullValue() {
         generator.writeNull();
         return this;
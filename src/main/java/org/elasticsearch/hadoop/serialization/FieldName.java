@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.serialization;
+
+/**
+ * Field name that is written repeatedly (such as the columns of a schema). The {@link Generator} encodes it on first use and
+ * keeps the result around so subsequent writes do not have to convert (or escape) it again.
+ */
+public final class FieldName {
+
+    private final String name;
+    // generator specific representation
+    private Object encoded;
+
+    public FieldName(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the representation cached by the generator (if any).
+     *
+     * @return encoded name or null
+     */
+    public Object encoded() {
+        return encoded;
+    }
+
+    public void encoded(Object encoded) {
+        this.encoded = encoded;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -30,6 +30,8 @@ public interface Generator extends Closeable {
 
     void writeFieldName(String name);
 
+    void writeFieldName(FieldName name);
+
     void writeString(String text);
 
     void writeUTF8String(byte[] text, int offset, int len);
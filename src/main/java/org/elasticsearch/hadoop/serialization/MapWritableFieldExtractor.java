@@ -19,6 +19,7 @@ import java.util.Map;
 
 import org.apache.hadoop.io.Text;
 import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.BytesArray;
 
 public class MapWritableFieldExtractor extends ConstantFieldExtractor {
 
@@ -36,6 +37,26 @@ public class MapWritableFieldExtractor extends ConstantFieldExtractor {
         return null;
     }
 
+    @SuppressWarnings("rawtypes")
+    @Override
+    protected boolean extractField(Object target, BytesArray to) {
+        if (target instanceof Map) {
+            Object w = ((Map) target).get(fieldName);
+            // copy the (already UTF-8) text as is
+            if (w instanceof Text) {
+                Text text = (Text) w;
+                to.reset();
+                to.add(text.getBytes(), 0, text.getLength());
+                return true;
+            }
+            if (w != null) {
+                to.bytes(w.toString());
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void setSettings(Settings settings) {
         super.setSettings(settings);
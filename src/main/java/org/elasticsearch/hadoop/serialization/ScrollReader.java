@@ -15,7 +15,10 @@
  */
 package org.elasticsearch.hadoop.serialization;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,7 +41,8 @@ public class ScrollReader {
 
     private Parser parser;
     private final ValueReader reader;
-    private final Map<String, FieldType> esMapping;
+    private final MappingNode esMapping;
+    private final ProjectionNode projection;
     private final boolean trace = log.isTraceEnabled();
 
     private static final String[] HITS = new String[] { "hits" };
@@ -47,20 +51,155 @@ public class ScrollReader {
     private static final String[] SOURCE = new String[] { "_source" };
     private static final String[] TOTAL = new String[] { "hits", "total" };
 
+    /**
+     * Mapping compiled into a tree of field names, walked as the parser descends into the document so no
+     * (full) field name needs to be assembled.
+     */
+    static class MappingNode {
+        final FieldType type;
+        final Map<String, MappingNode> properties;
+
+        private MappingNode(FieldType type, Map<String, MappingNode> properties) {
+            this.type = type;
+            this.properties = properties;
+        }
+
+        MappingNode property(String name) {
+            return (properties != null ? properties.get(name) : null);
+        }
+
+        static MappingNode compile(Field root) {
+            if (root == null) {
+                return null;
+            }
+            MappingNode node = node(root);
+            // 'fields' return the full path (a.b.c) of nested values - map them as well
+            flatten(root, node.properties, null);
+            return node;
+        }
+
+        private static MappingNode node(Field field) {
+            Field[] fields = field.properties();
+            Map<String, MappingNode> properties = null;
+            if (fields != null) {
+                properties = new HashMap<String, MappingNode>(fields.length * 2);
+                for (Field nested : fields) {
+                    properties.put(nested.name(), node(nested));
+                }
+            }
+            // objects are detected from the content (and might be null)
+            return new MappingNode((FieldType.OBJECT == field.type() ? null : field.type()), properties);
+        }
+
+        private static void flatten(Field field, Map<String, MappingNode> root, String parent) {
+            Field[] fields = field.properties();
+            if (fields == null) {
+                return;
+            }
+            for (Field nested : fields) {
+                if (parent != null) {
+                    String path = parent + "." + nested.name();
+                    if (!root.containsKey(path)) {
+                        root.put(path, node(nested));
+                    }
+                    flatten(nested, root, path);
+                }
+                else {
+                    flatten(nested, root, nested.name());
+                }
+            }
+        }
+    }
+
+    /**
+     * Field paths to read, compiled into a tree of field names. Fields outside it are skipped by the parser without
+     * being materialized. A node without properties includes everything underneath.
+     */
+    static class ProjectionNode {
+        Map<String, ProjectionNode> properties;
+
+        ProjectionNode property(String name) {
+            return properties.get(name);
+        }
+
+        boolean includesAll() {
+            return properties == null;
+        }
+
+        static ProjectionNode compile(Collection<String> paths) {
+            if (paths == null || paths.isEmpty()) {
+                return null;
+            }
+            ProjectionNode root = new ProjectionNode();
+            root.properties = new HashMap<String, ProjectionNode>();
+
+            for (String path : paths) {
+                if (!StringUtils.hasText(path)) {
+                    continue;
+                }
+                ProjectionNode node = root;
+                for (String name : StringUtils.tokenize(path.trim(), ".")) {
+                    // parent already included
+                    if (node.includesAll()) {
+                        break;
+                    }
+                    ProjectionNode child = node.properties.get(name);
+                    if (child == null) {
+                        child = new ProjectionNode();
+                        child.properties = new HashMap<String, ProjectionNode>();
+                        node.properties.put(name, child);
+                    }
+                    node = child;
+                }
+                // include the whole subtree
+                node.properties = null;
+            }
+            return (root.properties == null || root.properties.isEmpty() ? null : root);
+        }
+    }
+
     public ScrollReader(ValueReader reader, Field rootField) {
+        this(reader, rootField, null);
+    }
+
+    /**
+     * Creates a new reader that returns only the given fields.
+     *
+     * @param reader value reader
+     * @param rootField mapping (can be null)
+     * @param includes paths (<code>a.b.c</code>) of the fields to read; null or empty means all fields
+     */
+    public ScrollReader(ValueReader reader, Field rootField, Collection<String> includes) {
         this.reader = reader;
-        esMapping = Field.toLookupMap(rootField);
+        esMapping = MappingNode.compile(rootField);
+        projection = ProjectionNode.compile(includes);
     }
 
 
     public List<Object[]> read(byte[] content) {
         Assert.notNull(content);
-        this.parser = new JacksonJsonParser(content);
 
         if (trace) {
             log.trace("Parsing content " + StringUtils.asUTFString(content));
         }
 
+        return read(new JacksonJsonParser(content));
+    }
+
+    /**
+     * Reads the hits while the content is being streamed, without buffering it. The stream is closed once parsing ends.
+     *
+     * @param content scroll response
+     * @return hits
+     */
+    public List<Object[]> read(InputStream content) {
+        Assert.notNull(content);
+        return read(new JacksonJsonParser(content));
+    }
+
+    private List<Object[]> read(Parser parser) {
+        this.parser = parser;
+
         try {
             return read();
         } finally {
@@ -96,7 +235,7 @@ public class ScrollReader {
         Object[] result = new Object[2];
         result[0] = parser.text();
         Assert.notNull(ParsingUtils.seek(parser, SOURCE, FIELDS), "no '_source' or 'fields' found");
-        result[1] = read(t, null);
+        result[1] = read(t, esMapping, projection);
 
         if (trace) {
             log.trace(String.format("Read hit result [%s]=[%s]", result[0], result[1]));
@@ -112,13 +251,13 @@ public class ScrollReader {
     }
 
 
-    protected Object read(Token t, String fieldMapping) {
+    protected Object read(Token t, MappingNode fieldMapping, ProjectionNode fieldProjection) {
         // handle nested nodes first
         if (t == Token.START_OBJECT) {
-            return map(fieldMapping);
+            return map(fieldMapping, fieldProjection);
         }
         else if (t == Token.START_ARRAY) {
-            return list(fieldMapping);
+            return list(fieldMapping, fieldProjection);
         }
 
         FieldType esType = mapping(fieldMapping);
@@ -135,7 +274,7 @@ public class ScrollReader {
         return obj;
     }
 
-    protected Object list(String fieldMapping) {
+    protected Object list(MappingNode fieldMapping, ProjectionNode fieldProjection) {
         Token t = parser.currentToken();
 
         if (t == null) {
@@ -148,7 +287,7 @@ public class ScrollReader {
         Object array = reader.createArray(mapping(fieldMapping));
         List<Object> content = new ArrayList<Object>();
         for (; parser.currentToken() != Token.END_ARRAY;) {
-            content.add(read(parser.currentToken(), fieldMapping));
+            content.add(read(parser.currentToken(), fieldMapping, fieldProjection));
         }
 
         // eliminate END_ARRAY
@@ -158,7 +297,7 @@ public class ScrollReader {
         return array;
     }
 
-    protected Object map(String fieldMapping) {
+    protected Object map(MappingNode fieldMapping, ProjectionNode fieldProjection) {
         Token t = parser.currentToken();
 
         if (t == null) {
@@ -172,19 +311,23 @@ public class ScrollReader {
 
         for (; parser.currentToken() != Token.END_OBJECT; ) {
             String currentName = parser.currentName();
-            String nodeMapping = fieldMapping;
 
-            if (nodeMapping != null) {
-                nodeMapping = fieldMapping + "/" + currentName;
-            }
-            else {
-                nodeMapping = currentName;
+            ProjectionNode nodeProjection = null;
+            if (fieldProjection != null && !fieldProjection.includesAll()) {
+                nodeProjection = fieldProjection.property(currentName);
+                // not needed - skip the value (and its children)
+                if (nodeProjection == null) {
+                    skipValue();
+                    continue;
+                }
             }
 
+            MappingNode nodeMapping = (fieldMapping != null ? fieldMapping.property(currentName) : null);
+
             // Must point to field name
             Object fieldName = reader.readValue(parser, currentName, FieldType.STRING);
             // And then the value...
-            reader.addToMap(map, fieldName, read(parser.nextToken(), nodeMapping));
+            reader.addToMap(map, fieldName, read(parser.nextToken(), nodeMapping, nodeProjection));
         }
 
         // eliminate END_OBJECT
@@ -193,8 +336,17 @@ public class ScrollReader {
         return map;
     }
 
-    private FieldType mapping(String fieldMapping) {
-        FieldType esType = esMapping.get(fieldMapping);
+    // moves past the value of the current field
+    private void skipValue() {
+        Token t = parser.nextToken();
+        if (t == Token.START_OBJECT || t == Token.START_ARRAY) {
+            parser.skipChildren();
+        }
+        parser.nextToken();
+    }
+
+    private FieldType mapping(MappingNode fieldMapping) {
+        FieldType esType = (fieldMapping != null ? fieldMapping.type : null);
 
         if (esType != null) {
             return esType;
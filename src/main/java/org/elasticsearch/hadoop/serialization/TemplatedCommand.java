@@ -15,12 +15,16 @@
  */
 package org.elasticsearch.hadoop.serialization;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 
+import org.elasticsearch.hadoop.serialization.json.JacksonJsonGenerator;
 import org.elasticsearch.hadoop.util.Assert;
 import org.elasticsearch.hadoop.util.BytesArray;
 import org.elasticsearch.hadoop.util.BytesRef;
 import org.elasticsearch.hadoop.util.FastByteArrayOutputStream;
+import org.elasticsearch.hadoop.util.PagedBytesArray;
 
 class TemplatedCommand implements Command {
 
@@ -38,6 +42,11 @@ class TemplatedCommand implements Command {
         }
 
         BytesArray write(Object object) {
+            if (extractor instanceof BytesFieldExtractor) {
+                boolean found = ((BytesFieldExtractor) extractor).field(object, pad);
+                Assert.isTrue(found, String.format("[%s] cannot extract value from object [%s]", extractor, object));
+                return pad;
+            }
             String value = extractor.field(object);
             Assert.notNull(value, String.format("[%s] cannot extract value from object [%s]", extractor, object));
             pad.bytes(value);
@@ -45,12 +54,59 @@ class TemplatedCommand implements Command {
         }
     }
 
+    /**
+     * Output of the (reused) generator, redirected to the target of each document.
+     * As the generator sees the documents as consecutive root values, it might separate them through a space (if it cannot be
+     * configured otherwise) which is dropped.
+     */
+    static class DocumentOutput extends OutputStream {
+        // whether the generator separates the documents by itself
+        private boolean dropSeparator = true;
+        private OutputStream out;
+        private boolean started = false;
+        private boolean skipSeparator = false;
+
+        void reset(OutputStream out) {
+            this.out = out;
+            skipSeparator = started && dropSeparator;
+            started = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (skipSeparator) {
+                skipSeparator = false;
+                if (b == ' ') {
+                    return;
+                }
+            }
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (skipSeparator && len > 0) {
+                skipSeparator = false;
+                if (b[off] == ' ') {
+                    off++;
+                    len--;
+                }
+            }
+            out.write(b, off, len);
+        }
+    }
+
     private final Collection<Object> beforeObject;
     private final Collection<Object> afterObject;
 
     private BytesArray scratchPad = new BytesArray(1024);
+    private final FastByteArrayOutputStream scratchStream = new FastByteArrayOutputStream(scratchPad);
     private BytesRef ref = new BytesRef();
 
+    // generator used for all documents (created lazily and discarded on failure)
+    private DocumentOutput output;
+    private ContentBuilder builder;
+
     private final ValueWriter<?> valueWriter;
 
     TemplatedCommand(Collection<Object> beforeObject, Collection<Object> afterObject, ValueWriter<?> valueWriter) {
@@ -67,14 +123,49 @@ class TemplatedCommand implements Command {
         writeTemplate(beforeObject, object);
         // write object
         scratchPad.reset();
-        FastByteArrayOutputStream bos = new FastByteArrayOutputStream(scratchPad);
-        ContentBuilder.generate(bos, valueWriter).value(object).flush().close();
+        writeObject(object, scratchStream);
         ref.add(scratchPad);
         // writer after object
         writeTemplate(afterObject, object);
         return ref;
     }
 
+    @Override
+    public void write(Object object, PagedBytesArray to) {
+        writeTemplate(beforeObject, object, to);
+        // the generator writes straight into the buffer pages
+        writeObject(object, to.outputStream());
+        writeTemplate(afterObject, object, to);
+    }
+
+    private void writeObject(Object object, OutputStream out) {
+        if (builder == null) {
+            output = new DocumentOutput();
+            JacksonJsonGenerator generator = new JacksonJsonGenerator(output);
+            output.dropSeparator = !generator.omitRootValueSeparator();
+            builder = ContentBuilder.generate(generator, valueWriter);
+        }
+        output.reset(out);
+        try {
+            builder.value(object).flush();
+        } catch (RuntimeException ex) {
+            // the generator state (such as unclosed objects) cannot be trusted anymore
+            builder = null;
+            throw ex;
+        }
+    }
+
+    private void writeTemplate(Collection<Object> template, Object object, PagedBytesArray to) {
+        for (Object item : template) {
+            if (item instanceof byte[]) {
+                to.add((byte[]) item);
+            }
+            else {
+                to.add(((FieldWriter) item).write(object));
+            }
+        }
+    }
+
     private void writeTemplate(Collection<Object> template, Object object) {
         for (Object item : template) {
             if (item instanceof byte[]) {
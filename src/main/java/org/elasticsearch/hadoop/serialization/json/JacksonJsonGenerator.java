@@ -22,6 +22,9 @@ import org.apache.commons.logging.LogFactory;
 import org.codehaus.jackson.JsonEncoding;
 import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.io.SerializedString;
+import org.codehaus.jackson.util.MinimalPrettyPrinter;
+import org.elasticsearch.hadoop.serialization.FieldName;
 import org.elasticsearch.hadoop.serialization.Generator;
 import org.elasticsearch.hadoop.serialization.SerializationException;
 import org.elasticsearch.hadoop.util.ObjectUtils;
@@ -31,6 +34,8 @@ public class JacksonJsonGenerator implements Generator {
 
     private static final boolean JACKSON_16 = ObjectUtils.isClassPresent("org.codehaus.jackson.Version",
             JacksonJsonGenerator.class.getClassLoader());
+    private static final boolean MINIMAL_PRETTY_PRINTER = ObjectUtils.isClassPresent("org.codehaus.jackson.util.MinimalPrettyPrinter",
+            JacksonJsonGenerator.class.getClassLoader());
     private static final JsonFactory JSON_FACTORY;
     private final JsonGenerator generator;
     private final OutputStream out;
@@ -59,6 +64,27 @@ public class JacksonJsonGenerator implements Generator {
         generator.useDefaultPrettyPrinter();
     }
 
+    /**
+     * Writes consecutive root values without the separator (a space) Jackson adds between them.
+     *
+     * @return true if supported by the Jackson version in use, false otherwise
+     */
+    public boolean omitRootValueSeparator() {
+        if (!MINIMAL_PRETTY_PRINTER) {
+            return false;
+        }
+        generator.setPrettyPrinter(new NoRootSeparatorPrettyPrinter());
+        return true;
+    }
+
+    // in its own class so it gets loaded only if MinimalPrettyPrinter is available
+    private static class NoRootSeparatorPrettyPrinter extends MinimalPrettyPrinter {
+        @Override
+        public void writeRootValueSeparator(JsonGenerator jg) {
+            // no separator
+        }
+    }
+
     @Override
     public void writeBeginArray() {
         try {
@@ -104,6 +130,25 @@ public class JacksonJsonGenerator implements Generator {
         }
     }
 
+    @Override
+    public void writeFieldName(FieldName name) {
+        if (!JACKSON_16) {
+            writeFieldName(name.name());
+            return;
+        }
+        Object encoded = name.encoded();
+        if (!(encoded instanceof SerializedString)) {
+            // caches the quoted UTF-8 bytes after the first write
+            encoded = new SerializedString(name.name());
+            name.encoded(encoded);
+        }
+        try {
+            generator.writeFieldName((SerializedString) encoded);
+        } catch (IOException ex) {
+            throw new SerializationException(ex);
+        }
+    }
+
     @Override
     public void writeString(String text) {
         try {
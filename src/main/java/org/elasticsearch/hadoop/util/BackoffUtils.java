@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.util.Random;
+
+/**
+ * Utility for computing the wait between retries.
+ */
+public abstract class BackoffUtils {
+
+    /**
+     * Returns the time to wait before the given retry using equal jitter: a random wait between half and the whole of the
+     * exponential backoff (see {@link #cap(long, int, int)}). Clients rejected at the same time do not retry at the same time
+     * while each of them is still guaranteed to back off.
+     *
+     * @param maxWait maximum wait (in millis), used by the last retry
+     * @param retry current retry (starting at 0)
+     * @param retries total number of retries
+     * @param random source of jitter
+     * @return time to wait (in millis)
+     */
+    public static long backoff(long maxWait, int retry, int retries, Random random) {
+        long wait = cap(maxWait, retry, retries);
+        long half = wait / 2;
+        return half + (long) (random.nextDouble() * (wait - half));
+    }
+
+    /**
+     * Returns the time to wait before the given retry using full jitter: a random wait between 0 and the exponential backoff
+     * (see {@link #cap(long, int, int)}), which spreads the retries of clients rejected at the same time the most.
+     *
+     * @param maxWait maximum wait (in millis), used by the last retry
+     * @param retry current retry (starting at 0)
+     * @param retries total number of retries
+     * @param random source of jitter
+     * @return time to wait (in millis)
+     */
+    public static long fullJitter(long maxWait, int retry, int retries, Random random) {
+        return (long) (random.nextDouble() * cap(maxWait, retry, retries));
+    }
+
+    /**
+     * Returns the exponential backoff (doubling with each retry) for the given retry, capped by the given wait which is
+     * reached on the last retry.
+     */
+    static long cap(long maxWait, int retry, int retries) {
+        int shift = Math.max(0, retries - retry - 1);
+        long wait = (shift >= 63 ? 0 : maxWait >> shift);
+        return Math.max(0, wait);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Sequence of bytes, potentially not backed by a single (contiguous) array, that can be streamed without being copied.
+ */
+public interface ByteSequence {
+
+    int size();
+
+    /**
+     * Writes the bytes (in order) to the given stream.
+     *
+     * @param out stream to write to
+     * @throws IOException
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -15,11 +15,14 @@
  */
 package org.elasticsearch.hadoop.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Wrapper class around a bytes array so that it can be passed as reference even if the underlying array is modified.
  * Allows only a part of the array to be used (slicing).
  */
-public class BytesArray {
+public class BytesArray implements ByteSequence {
 
     public static final byte[] EMPTY = new byte[0];
 
@@ -48,6 +51,7 @@ public class BytesArray {
         return bytes;
     }
 
+    @Override
     public int size() {
         return size;
     }
@@ -87,6 +91,11 @@ public class BytesArray {
         to.add(bytes, 0, size);
     }
 
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
     public void add(int b) {
         int newcount = size + 1;
         checkSize(newcount);
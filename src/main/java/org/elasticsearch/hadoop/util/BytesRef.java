@@ -60,6 +60,20 @@ public class BytesRef {
         }
     }
 
+    public void copyTo(PagedBytesArray to) {
+        if (list == null) {
+            return;
+        }
+        for (Object ref : list) {
+            if (ref instanceof BytesArray) {
+                to.add((BytesArray) ref);
+            }
+            else {
+                to.add((byte[]) ref);
+            }
+        }
+    }
+
     public void reset() {
         if (list != null) {
             list.clear();
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Growable byte buffer made of fixed-size pages. Unlike {@link BytesArray}, growing the buffer allocates a new page instead of
+ * copying the existing content; the pages are streamed one by one (see {@link #writeTo(OutputStream)}) and, once
+ * {@link #release() released}, recycled through the (bounded) {@link PagePool} given at construction time, if any.
+ */
+public class PagedBytesArray implements ByteSequence {
+
+    static final int PAGE_SHIFT = 14;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * Pool of pages shared by the buffers of one owner (typically a repository) and sized by the memory they are expected
+     * to use. The pool is not global on purpose: the pages are reclaimed (by the GC) together with their owner instead of
+     * being held for the life of the (possibly reused) JVM.
+     */
+    public static class PagePool {
+        private final BlockingQueue<byte[]> pages;
+
+        /**
+         * Creates a pool keeping at most the given amount of memory.
+         *
+         * @param maxBytes maximum number of bytes (rounded up to whole pages) kept by the pool
+         */
+        public PagePool(long maxBytes) {
+            long count = (Math.max(0, maxBytes) + PAGE_MASK) >>> PAGE_SHIFT;
+            pages = new ArrayBlockingQueue<byte[]>((int) Math.max(1, Math.min(Integer.MAX_VALUE, count)));
+        }
+
+        byte[] take() {
+            byte[] page = pages.poll();
+            return (page != null ? page : new byte[PAGE_SIZE]);
+        }
+
+        boolean recycle(byte[] page) {
+            return pages.offer(page);
+        }
+
+        int size() {
+            return pages.size();
+        }
+    }
+
+    private final PagePool pool;
+    private final List<byte[]> pages = new ArrayList<byte[]>();
+    private int size = 0;
+    private OutputStream stream;
+
+    /**
+     * Creates a buffer without any pool - released pages are simply dropped.
+     */
+    public PagedBytesArray() {
+        this(null);
+    }
+
+    public PagedBytesArray(PagePool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void add(int b) {
+        int offset = size & PAGE_MASK;
+        byte[] page = (offset == 0 ? ensurePage(size >>> PAGE_SHIFT) : pages.get(size >>> PAGE_SHIFT));
+        page[offset] = (byte) b;
+        size++;
+    }
+
+    public void add(byte[] b) {
+        if (b == null || b.length == 0) {
+            return;
+        }
+        add(b, 0, b.length);
+    }
+
+    public void add(BytesArray ba) {
+        add(ba.bytes(), 0, ba.size());
+    }
+
+    public void add(byte[] b, int off, int len) {
+        while (len > 0) {
+            int offset = size & PAGE_MASK;
+            byte[] page = ensurePage(size >>> PAGE_SHIFT);
+            int chunk = Math.min(len, PAGE_SIZE - offset);
+            System.arraycopy(b, off, page, offset, chunk);
+            size += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    private byte[] ensurePage(int index) {
+        if (index < pages.size()) {
+            return pages.get(index);
+        }
+        byte[] page = (pool != null ? pool.take() : new byte[PAGE_SIZE]);
+        pages.add(page);
+        return page;
+    }
+
+    /**
+     * Returns a stream appending the bytes written to it to this buffer.
+     *
+     * @return output stream view of this buffer
+     */
+    public OutputStream outputStream() {
+        if (stream == null) {
+            stream = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    add(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    add(b, off, len);
+                }
+            };
+        }
+        return stream;
+    }
+
+    /**
+     * Copies the given number of bytes from one position to another (lower or equal) one.
+     * As the target is always behind the source, the content is copied front to back without any extra buffer.
+     *
+     * @param from source position
+     * @param to target position
+     * @param length number of bytes to copy
+     */
+    public void move(int from, int to, int length) {
+        Assert.isTrue(to <= from && from + length <= size, String.format("Invalid move of [%d] bytes from [%d] to [%d]", length, from, to));
+        if (from == to) {
+            return;
+        }
+        while (length > 0) {
+            int fromOffset = from & PAGE_MASK;
+            int toOffset = to & PAGE_MASK;
+            int chunk = Math.min(length, Math.min(PAGE_SIZE - fromOffset, PAGE_SIZE - toOffset));
+            System.arraycopy(pages.get(from >>> PAGE_SHIFT), fromOffset, pages.get(to >>> PAGE_SHIFT), toOffset, chunk);
+            from += chunk;
+            to += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Discards the content after the given position.
+     *
+     * @param size new size
+     */
+    public void truncate(int size) {
+        Assert.isTrue(size >= 0 && size <= this.size, String.format("Invalid size [%d]", size));
+        this.size = size;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        int remaining = size;
+        for (int i = 0; remaining > 0; i++) {
+            int chunk = Math.min(remaining, PAGE_SIZE);
+            out.write(pages.get(i), 0, chunk);
+            remaining -= chunk;
+        }
+    }
+
+    /**
+     * Empties the buffer while keeping its pages for reuse.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Empties the buffer and returns its pages to the pool (if any).
+     */
+    public void release() {
+        if (pool != null) {
+            for (byte[] page : pages) {
+                if (!pool.recycle(page)) {
+                    break;
+                }
+            }
+        }
+        pages.clear();
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        BytesArray copy = new BytesArray(size);
+        for (int i = 0, remaining = size; remaining > 0; i++) {
+            int chunk = Math.min(remaining, PAGE_SIZE);
+            copy.add(pages.get(i), 0, chunk);
+            remaining -= chunk;
+        }
+        return copy.toString();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+/**
+ * Utility mirroring the way Elasticsearch (0.90/1.x) routes documents to shards.
+ */
+public abstract class RoutingUtils {
+
+    /**
+     * Returns the (primary) shard of a document with the given routing value (the routing, parent or id of the document).
+     *
+     * @param routing routing value
+     * @param numberOfShards number of primary shards of the target index
+     * @return shard id
+     */
+    public static int shardId(String routing, int numberOfShards) {
+        // same as Elasticsearch, which takes the absolute value of the (signed) remainder
+        return Math.abs(djbHash(routing) % numberOfShards);
+    }
+
+    // DJB hash as used by Elasticsearch's default hash function
+    static int djbHash(String value) {
+        long hash = 5381;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash = ((hash << 5) + hash) + value.charAt(i);
+        }
+
+        return (int) hash;
+    }
+}
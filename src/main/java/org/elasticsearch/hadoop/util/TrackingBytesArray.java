@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.util.List;
+
+/**
+ * {@link PagedBytesArray} wrapper that keeps track of the entries (their start offsets) added to it.
+ * Allows a subset of the entries to be retained (for example to retry them) without having to copy them into a different buffer.
+ */
+public class TrackingBytesArray {
+
+    private final PagedBytesArray data;
+    private int[] offsets = new int[16];
+    private int entries = 0;
+
+    public TrackingBytesArray(PagedBytesArray data) {
+        this.data = data;
+    }
+
+    public void copyFrom(BytesRef ref) {
+        ref.copyTo(newEntry());
+    }
+
+    /**
+     * Starts a new entry and returns the buffer to write it to (directly, without any intermediate copy).
+     * In case the entry cannot be written completely, discard it through {@link #discardLast()}.
+     *
+     * @return buffer to write the new entry to
+     */
+    public PagedBytesArray newEntry() {
+        if (entries == offsets.length) {
+            int[] newOffsets = new int[ArrayUtils.oversize(entries + 1, 4)];
+            System.arraycopy(offsets, 0, newOffsets, 0, entries);
+            offsets = newOffsets;
+        }
+        offsets[entries++] = data.size();
+        return data;
+    }
+
+    /**
+     * Discards the last entry (and any bytes written after its start).
+     */
+    public void discardLast() {
+        Assert.isTrue(entries > 0, "No entry to discard");
+        data.truncate(offsets[--entries]);
+    }
+
+    public PagedBytesArray bytes() {
+        return data;
+    }
+
+    public int length() {
+        return data.size();
+    }
+
+    public int entries() {
+        return entries;
+    }
+
+    /**
+     * Keeps only the entries at the given positions, discarding the rest. The retained entries are moved (in order)
+     * at the beginning of the underlying buffer.
+     *
+     * @param positions entry positions to keep, in ascending order
+     */
+    public void retain(List<Integer> positions) {
+        int size = 0;
+        int retained = 0;
+
+        for (Integer position : positions) {
+            int index = position.intValue();
+            Assert.isTrue(index >= 0 && index < entries, String.format("Invalid entry position [%d]", index));
+
+            int start = offsets[index];
+            int length = end(index) - start;
+            // positions are ordered so the target offset is always behind (or at) the source offset
+            data.move(start, size, length);
+            offsets[retained++] = size;
+            size += length;
+        }
+
+        data.truncate(size);
+        entries = retained;
+    }
+
+    private int end(int position) {
+        return (position + 1 < entries ? offsets[position + 1] : data.size());
+    }
+
+    public void reset() {
+        data.reset();
+        entries = 0;
+    }
+
+    /**
+     * Empties the buffer and returns its memory to the pool (see {@link PagedBytesArray#release()}).
+     */
+    public void release() {
+        data.release();
+        entries = 0;
+    }
+
+    @Override
+    public String toString() {
+        return data.toString();
+    }
+}
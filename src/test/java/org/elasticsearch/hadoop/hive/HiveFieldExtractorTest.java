@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.hive;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.PropertiesSettings;
+import org.elasticsearch.hadoop.serialization.ConstantFieldExtractor;
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory.*;
+
+public class HiveFieldExtractorTest {
+
+    private HiveFieldExtractor extractor;
+    private ObjectInspector oi;
+    private final BytesArray pad = new BytesArray(4);
+
+    @Before
+    public void before() {
+        // Hive serializes the rows using the internal column names
+        oi = TypeInfoUtils.getStandardWritableObjectInspectorFromTypeInfo(getStructTypeInfo(Arrays.asList("_col0", "_col1"),
+                Arrays.<TypeInfo> asList(intTypeInfo, stringTypeInfo)));
+
+        extractor = new HiveFieldExtractor();
+        extractor.setSettings(settings("name"));
+    }
+
+    @Test
+    public void testTextField() throws Exception {
+        assertTrue(extractor.field(row(1, "kimchy"), pad));
+        assertEquals("kimchy", pad.toString());
+        // the pad is overwritten, not appended to
+        assertTrue(extractor.field(row(2, "costin"), pad));
+        assertEquals("costin", pad.toString());
+        assertEquals("costin", extractor.field(row(2, "costin")));
+    }
+
+    @Test
+    public void testNonTextField() throws Exception {
+        extractor.setSettings(settings("id"));
+        assertTrue(extractor.field(row(42, "kimchy"), pad));
+        assertEquals("42", pad.toString());
+    }
+
+    @Test
+    public void testNullField() throws Exception {
+        assertTrue(extractor.field(row(1, null), pad));
+        assertEquals(0, pad.size());
+        assertEquals("", extractor.field(row(1, null)));
+    }
+
+    @Test
+    public void testUnknownTarget() throws Exception {
+        assertFalse(extractor.field(new Object(), pad));
+        assertNull(extractor.field(new Object()));
+    }
+
+    private HiveType row(int id, String name) {
+        return new HiveType(Arrays.asList(new IntWritable(id), (name != null ? new Text(name) : null)), oi);
+    }
+
+    private static PropertiesSettings settings(String field) {
+        Properties props = new Properties();
+        props.setProperty(HiveConstants.COLUMNS, "id,name");
+        props.setProperty(ConstantFieldExtractor.PROPERTY, ConfigurationOptions.ES_MAPPING_ID);
+        props.setProperty(ConfigurationOptions.ES_MAPPING_ID, field);
+        return new PropertiesSettings(props);
+    }
+}
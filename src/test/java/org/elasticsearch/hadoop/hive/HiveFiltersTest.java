@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.hive;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFBetween;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFIn;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPAnd;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPNotEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPNull;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPOr;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.elasticsearch.hadoop.cfg.PropertiesSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HiveFiltersTest {
+
+    private final FieldAlias alias = new FieldAlias();
+
+    @Test
+    public void testEqual() throws Exception {
+        assertEquals("{\"term\":{\"age\":30}}", HiveFilters.toFilter(func(new GenericUDFOPEqual(), col("age"), val(30)), alias));
+        assertEquals("{\"query\":{\"match\":{\"name\":{\"query\":\"John Doe\",\"type\":\"phrase\",\"zero_terms_query\":\"all\"}}}}",
+                HiveFilters.toFilter(func(new GenericUDFOPEqual(), val("John Doe"), col("name")), alias));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertEquals("{\"range\":{\"age\":{\"lt\":30}}}", HiveFilters.toFilter(func(new GenericUDFOPLessThan(), col("age"), val(30)), alias));
+        // constant first - operator is reversed
+        assertEquals("{\"range\":{\"age\":{\"gt\":30}}}", HiveFilters.toFilter(func(new GenericUDFOPLessThan(), val(30), col("age")), alias));
+        assertEquals("{\"range\":{\"age\":{\"gte\":18,\"lte\":30}}}",
+                HiveFilters.toFilter(func(new GenericUDFBetween(), val(false), col("age"), val(18), val(30)), alias));
+        assertNull(HiveFilters.toFilter(func(new GenericUDFBetween(), val(true), col("age"), val(18), val(30)), alias));
+        // string ranges depend on the analysis
+        assertNull(HiveFilters.toFilter(func(new GenericUDFOPGreaterThan(), col("name"), val("a")), alias));
+    }
+
+    @Test
+    public void testInAndNull() throws Exception {
+        assertEquals("{\"or\":[{\"term\":{\"age\":1}},{\"term\":{\"age\":2}}]}",
+                HiveFilters.toFilter(func(new GenericUDFIn(), col("age"), val(1), val(2)), alias));
+        assertEquals("{\"missing\":{\"field\":\"age\"}}", HiveFilters.toFilter(func(new GenericUDFOPNull(), col("age")), alias));
+    }
+
+    @Test
+    public void testBooleanOperators() throws Exception {
+        ExprNodeDesc eq = func(new GenericUDFOPEqual(), col("age"), val(30));
+        ExprNodeDesc ne = func(new GenericUDFOPNotEqual(), col("age"), val(40));
+
+        // unsupported conditions are dropped from AND (the filter only gets wider)
+        assertEquals("{\"term\":{\"age\":30}}", HiveFilters.toFilter(func(new GenericUDFOPAnd(), eq, ne), alias));
+        assertEquals("{\"and\":[{\"term\":{\"age\":30}},{\"term\":{\"age\":30}}]}", HiveFilters.toFilter(func(new GenericUDFOPAnd(), eq, eq), alias));
+        // but not from OR
+        assertNull(HiveFilters.toFilter(func(new GenericUDFOPOr(), eq, ne), alias));
+        assertEquals("{\"or\":[{\"term\":{\"age\":30}},{\"term\":{\"age\":30}}]}", HiveFilters.toFilter(func(new GenericUDFOPOr(), eq, eq), alias));
+    }
+
+    @Test
+    public void testAlias() throws Exception {
+        Properties props = new Properties();
+        props.put("es.mapping.names", "ts:@timestamp");
+        FieldAlias alias = HiveUtils.alias(new PropertiesSettings(props));
+        assertEquals("{\"term\":{\"@timestamp\":1}}", HiveFilters.toFilter(func(new GenericUDFOPEqual(), col("ts"), val(1)), alias));
+    }
+
+    private static ExprNodeDesc func(GenericUDF udf, ExprNodeDesc... children) {
+        return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, udf, Arrays.asList(children));
+    }
+
+    private static ExprNodeDesc col(String name) {
+        return new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, name, "t", false);
+    }
+
+    private static ExprNodeDesc val(Object value) {
+        return new ExprNodeConstantDesc(value);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.hive;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.io.ShortWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.elasticsearch.hadoop.cfg.PropertiesSettings;
+import org.elasticsearch.hadoop.serialization.ContentBuilder;
+import org.elasticsearch.hadoop.util.FastByteArrayOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import static org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory.*;
+
+public class HiveValueWriterTest {
+
+    private final HiveValueWriter writer = new HiveValueWriter();
+
+    @Test
+    public void testStruct() throws Exception {
+        ObjectInspector oi = inspector(getStructTypeInfo(Arrays.asList("name", "age", "score", "active", "tags", "props", "rank"),
+                Arrays.<TypeInfo> asList(stringTypeInfo, longTypeInfo, doubleTypeInfo, booleanTypeInfo,
+                        getListTypeInfo(intTypeInfo), getMapTypeInfo(stringTypeInfo, shortTypeInfo), intTypeInfo)));
+
+        List<Object> row = Arrays.<Object> asList(new Text("kimchy"), new LongWritable(42), new DoubleWritable(4.5), new BooleanWritable(true),
+                Arrays.asList(new IntWritable(1), null), Collections.singletonMap(new Text("Key"), new ShortWritable((short) 7)), null);
+
+        assertEquals("{\"name\":\"kimchy\",\"age\":42,\"score\":4.5,\"active\":true,\"tags\":[1,null],\"props\":{\"key\":7},\"rank\":null}",
+                write(row, oi));
+    }
+
+    @Test
+    public void testRowsSharingInspector() throws Exception {
+        ObjectInspector oi = inspector(getStructTypeInfo(Arrays.asList("id", "name"), Arrays.<TypeInfo> asList(intTypeInfo, stringTypeInfo)));
+
+        assertEquals("{\"id\":1,\"name\":\"one\"}", write(Arrays.asList(new IntWritable(1), new Text("one")), oi));
+        assertEquals("{\"id\":2,\"name\":\"two\"}", write(Arrays.asList(new IntWritable(2), new Text("two")), oi));
+
+        // a different inspector is compiled on its own
+        ObjectInspector other = inspector(getStructTypeInfo(Arrays.asList("flag"), Arrays.<TypeInfo> asList(booleanTypeInfo)));
+        assertEquals("{\"flag\":false}", write(Arrays.asList(new BooleanWritable(false)), other));
+    }
+
+    @Test
+    public void testAlias() throws Exception {
+        ObjectInspector oi = inspector(getStructTypeInfo(Arrays.asList("ts", "name"), Arrays.<TypeInfo> asList(longTypeInfo, stringTypeInfo)));
+        assertEquals("{\"ts\":1,\"name\":\"a\"}", write(Arrays.asList(new LongWritable(1), new Text("a")), oi));
+
+        Properties props = new Properties();
+        props.setProperty(HiveConstants.MAPPING_NAMES, "ts:@timestamp");
+        writer.setSettings(new PropertiesSettings(props));
+        assertEquals("{\"@timestamp\":1,\"name\":\"a\"}", write(Arrays.asList(new LongWritable(1), new Text("a")), oi));
+    }
+
+    private String write(Object data, ObjectInspector oi) {
+        FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        ContentBuilder.generate(out, writer).value(new HiveType(data, oi)).flush().close();
+        return out.bytes().toString();
+    }
+
+    private static ObjectInspector inspector(TypeInfo info) {
+        return TypeInfoUtils.getStandardWritableObjectInspectorFromTypeInfo(info);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.pig;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.pig.Expression;
+import org.apache.pig.Expression.BinaryExpression;
+import org.apache.pig.Expression.Column;
+import org.apache.pig.Expression.Const;
+import org.apache.pig.Expression.OpType;
+import org.elasticsearch.hadoop.rest.dto.mapping.Field;
+import org.elasticsearch.hadoop.serialization.FieldType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PigFiltersTest {
+
+    private final Map<String, FieldType> fields = PigFilters.filterableFields(new Field("tweet", FieldType.OBJECT, Arrays.asList(
+            new Field("age", FieldType.LONG), new Field("score", FieldType.FLOAT), new Field("active", FieldType.BOOLEAN),
+            new Field("name", FieldType.STRING), new Field("user", FieldType.OBJECT, Arrays.asList(new Field("id", FieldType.LONG))))));
+    private final FieldAlias alias = new FieldAlias();
+
+    @Test
+    public void testFilterableFields() throws Exception {
+        assertEquals(Arrays.asList("age", "score", "active"), Arrays.asList(fields.keySet().toArray()));
+    }
+
+    @Test
+    public void testComparison() throws Exception {
+        assertEquals("{\"term\":{\"age\":30}}", PigFilters.toFilter(op(col("age"), val(30), OpType.OP_EQ), fields, alias));
+        assertEquals("{\"term\":{\"active\":true}}", PigFilters.toFilter(op(col("active"), val(true), OpType.OP_EQ), fields, alias));
+        assertEquals("{\"range\":{\"age\":{\"lte\":30}}}", PigFilters.toFilter(op(col("age"), val(30L), OpType.OP_LE), fields, alias));
+        // constant first - operator is reversed
+        assertEquals("{\"range\":{\"age\":{\"lt\":30}}}", PigFilters.toFilter(op(val(30), col("age"), OpType.OP_GT), fields, alias));
+        assertEquals("{\"and\":[{\"exists\":{\"field\":\"age\"}},{\"not\":{\"term\":{\"age\":30}}}]}",
+                PigFilters.toFilter(op(col("age"), val(30), OpType.OP_NE), fields, alias));
+    }
+
+    @Test
+    public void testInexactComparison() throws Exception {
+        // fractions would be truncated on integral fields
+        assertNull(PigFilters.toFilter(op(col("age"), val(2.5d), OpType.OP_GE), fields, alias));
+        assertNull(PigFilters.toFilter(op(col("score"), val(2.5d), OpType.OP_GE), fields, alias));
+        assertNull(PigFilters.toFilter(op(col("active"), val(true), OpType.OP_GT), fields, alias));
+        assertNull(PigFilters.toFilter(op(col("name"), val("joe"), OpType.OP_EQ), fields, alias));
+        assertNull(PigFilters.toFilter(op(op(col("age"), val(1), OpType.OP_PLUS), val(5), OpType.OP_GT), fields, alias));
+    }
+
+    @Test
+    public void testBooleanOperators() throws Exception {
+        Expression eq = op(col("age"), val(30), OpType.OP_EQ);
+        Expression gt = op(col("score"), val(1.5f), OpType.OP_GT);
+        assertEquals("{\"or\":[{\"term\":{\"age\":30}},{\"range\":{\"score\":{\"gt\":1.5}}}]}",
+                PigFilters.toFilter(op(eq, gt, OpType.OP_OR), fields, alias));
+        // all conditions are required - Pig does not evaluate them anymore
+        assertNull(PigFilters.toFilter(op(eq, op(col("name"), val("joe"), OpType.OP_EQ), OpType.OP_AND), fields, alias));
+    }
+
+    private static Expression op(Expression lhs, Expression rhs, OpType op) {
+        return new BinaryExpression(lhs, rhs, op);
+    }
+
+    private static Expression col(String name) {
+        return new Column(name);
+    }
+
+    private static Expression val(Object value) {
+        return new Const(value);
+    }
+}
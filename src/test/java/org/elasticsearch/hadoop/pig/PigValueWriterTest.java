@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.pig;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.apache.pig.ResourceSchema;
+import org.apache.pig.data.DefaultDataBag;
+import org.apache.pig.data.TupleFactory;
+import org.apache.pig.impl.util.Utils;
+import org.elasticsearch.hadoop.cfg.PropertiesSettings;
+import org.elasticsearch.hadoop.serialization.ContentBuilder;
+import org.elasticsearch.hadoop.util.FastByteArrayOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PigValueWriterTest {
+
+    private final PigValueWriter writer = new PigValueWriter();
+
+    @Test
+    public void testTuple() throws Exception {
+        PigTuple tuple = new PigTuple(schema("name:chararray, age:long, score:double, active:boolean, rank:int, "
+                + "links:(url:chararray, hits:int), tags:{t:(tag:chararray)}, props:[int]"));
+
+        TupleFactory tf = TupleFactory.getInstance();
+        tuple.setTuple(tf.newTuple(Arrays.<Object> asList("kimchy", 42L, 4.5d, true, null,
+                tf.newTuple(Arrays.<Object> asList("http://foo", 3)),
+                new DefaultDataBag(Arrays.asList(tf.newTuple("a"), tf.newTuple("b"))),
+                Collections.singletonMap("Key", 7))));
+
+        assertEquals("{\"name\":\"kimchy\",\"age\":42,\"score\":4.5,\"active\":true,\"rank\":null,"
+                + "\"links\":{\"url\":\"http://foo\",\"hits\":3},\"tags\":[{\"tag\":\"a\"},{\"tag\":\"b\"}],\"props\":{\"key\":7}}", write(tuple));
+    }
+
+    @Test
+    public void testTuplesSharingSchema() throws Exception {
+        PigTuple tuple = new PigTuple(schema("id:int, name:chararray"));
+        tuple.setTuple(TupleFactory.getInstance().newTuple(Arrays.<Object> asList(1, "one")));
+        assertEquals("{\"id\":1,\"name\":\"one\"}", write(tuple));
+        tuple.setTuple(TupleFactory.getInstance().newTuple(Arrays.<Object> asList(2, "two")));
+        assertEquals("{\"id\":2,\"name\":\"two\"}", write(tuple));
+
+        // a different schema is compiled on its own
+        tuple.setSchema(schema("flag:boolean"));
+        tuple.setTuple(TupleFactory.getInstance().newTuple(Boolean.FALSE));
+        assertEquals("{\"flag\":false}", write(tuple));
+    }
+
+    @Test
+    public void testAlias() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("es.mapping.names", "ts:@timestamp");
+        writer.setSettings(new PropertiesSettings(props));
+
+        PigTuple tuple = new PigTuple(schema("ts:long, name:chararray"));
+        tuple.setTuple(TupleFactory.getInstance().newTuple(Arrays.<Object> asList(1L, "a")));
+        assertEquals("{\"@timestamp\":1,\"name\":\"a\"}", write(tuple));
+    }
+
+    private String write(PigTuple tuple) {
+        FastByteArrayOutputStream out = new FastByteArrayOutputStream();
+        ContentBuilder.generate(out, writer).value(tuple).flush().close();
+        return out.bytes().toString();
+    }
+
+    private static ResourceSchema schema(String schema) throws Exception {
+        return new ResourceSchema(Utils.getSchemaFromString(schema));
+    }
+}
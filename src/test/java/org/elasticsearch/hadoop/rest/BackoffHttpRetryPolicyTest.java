@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.util.Collections;
+
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BackoffHttpRetryPolicyTest {
+
+    private ResponseRetry retry(String wait) {
+        TestSettings settings = new TestSettings();
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_COUNT, "3");
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_WAIT, wait);
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_BREAKER_FAILURES, "2");
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_BREAKER_COOLDOWN, "1m");
+        BackoffHttpRetryPolicy policy = new BackoffHttpRetryPolicy();
+        policy.setSettings(settings);
+        return (ResponseRetry) policy.init();
+    }
+
+    private static Response response(int status, String retryAfter) {
+        return new SimpleResponse(status, null, "test", (retryAfter == null ? Collections.<String, String> emptyMap() :
+                Collections.singletonMap("retry-after", retryAfter)));
+    }
+
+    @Test
+    public void testRetryAfter() throws Exception {
+        assertEquals(0, BackoffHttpRetryPolicy.retryAfter(null, 0));
+        assertEquals(0, BackoffHttpRetryPolicy.retryAfter("soon", 0));
+        assertEquals(120000, BackoffHttpRetryPolicy.retryAfter(" 120 ", 0));
+        // 1994-11-06 08:49:37 GMT
+        long date = 784111777000L;
+        assertEquals(5000, BackoffHttpRetryPolicy.retryAfter("Sun, 06 Nov 1994 08:49:37 GMT", date - 5000));
+        assertEquals(0, BackoffHttpRetryPolicy.retryAfter("Sun, 06 Nov 1994 08:49:37 GMT", date + 5000));
+    }
+
+    @Test
+    public void testOnlyOverloadIsRetried() throws Exception {
+        ResponseRetry retry = retry("1s");
+        assertTrue(retry.delay(response(HttpStatus.OK, null), "node-ok") < 0);
+        assertTrue(retry.delay(response(HttpStatus.BAD_REQUEST, null), "node-ok") < 0);
+        assertTrue(retry.delay(response(HttpStatus.INTERNAL_SERVER_ERROR, null), "node-ok") < 0);
+        assertTrue(retry.delay(response(HttpStatus.TOO_MANY_REQUESTS, null), "node-ok") >= 0);
+    }
+
+    @Test
+    public void testRetryLimit() throws Exception {
+        ResponseRetry retry = retry("1s");
+        for (int i = 0; i < 3; i++) {
+            long delay = retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-limit-" + i);
+            assertTrue(delay >= 0 && delay <= 1000);
+        }
+        assertTrue(retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-limit-3") < 0);
+    }
+
+    @Test
+    public void testFullJitterDelays() throws Exception {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 50; i++) {
+            ResponseRetry retry = retry("1s");
+            // skip to the last retry, whose cap is the maximum wait
+            retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-jitter-" + i);
+            retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-jitter-" + i);
+            long delay = retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-jitter-" + i);
+            assertTrue(delay >= 0 && delay <= 1000);
+            min = Math.min(min, delay);
+        }
+        // full jitter - no minimum wait shared by all clients
+        assertTrue(min < 500);
+    }
+
+    @Test
+    public void testHonorRetryAfter() throws Exception {
+        ResponseRetry retry = retry("1m");
+        assertTrue(retry.delay(response(HttpStatus.GATEWAY_TIMEOUT, "30"), "node-after") >= 30000);
+        // longer than the maximum wait
+        assertTrue(retry.delay(response(HttpStatus.GATEWAY_TIMEOUT, "120"), "node-after") < 0);
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        ResponseRetry retry = retry("1s");
+        assertTrue(retry.isAvailable("node-hot"));
+        retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-hot");
+        assertTrue(retry.isAvailable("node-hot"));
+        retry.delay(response(HttpStatus.SERVICE_UNAVAILABLE, null), "node-hot");
+        assertFalse(retry.isAvailable("node-hot"));
+        // shared across retries
+        assertFalse(retry("1s").isAvailable("node-hot"));
+        assertTrue(retry.isAvailable("node-cold"));
+        // success closes the breaker
+        retry.delay(response(HttpStatus.OK, null), "node-hot");
+        assertTrue(retry.isAvailable("node-hot"));
+    }
+
+    @Test
+    public void testBreakerCooldown() throws Exception {
+        BackoffHttpRetryPolicy.CircuitBreaker breaker = new BackoffHttpRetryPolicy.CircuitBreaker();
+        breaker.failure(1000, 1, 500);
+        assertFalse(breaker.isClosed(1499));
+        assertTrue(breaker.isClosed(1500));
+    }
+}
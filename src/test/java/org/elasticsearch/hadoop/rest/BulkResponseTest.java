@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.elasticsearch.hadoop.rest.BulkResponse.Failure;
+import org.elasticsearch.hadoop.util.IOUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BulkResponseTest {
+
+    @Test
+    public void testNoErrorsFlag() throws IOException {
+        BulkResponse response = BulkResponse.parse(read("bulk-no-errors.json"));
+        assertFalse(response.hasFailures());
+    }
+
+    @Test
+    public void testErrorsWithoutFlag() throws IOException {
+        BulkResponse response = BulkResponse.parse(read("bulk-090.json"));
+        assertTrue(response.hasFailures());
+        List<Failure> failures = response.failures();
+        assertEquals(1, failures.size());
+        assertEquals(1, failures.get(0).position());
+        assertEquals(0, failures.get(0).status());
+        assertTrue(failures.get(0).message().startsWith("MapperParsingException"));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        BulkResponse response = BulkResponse.parse(read("bulk-errors.json"));
+        List<Failure> failures = response.failures();
+        assertEquals(2, failures.size());
+        assertEquals(0, failures.get(0).position());
+        assertEquals(429, failures.get(0).status());
+        assertTrue(failures.get(0).message().startsWith("EsRejectedExecutionException"));
+        assertEquals(2, failures.get(1).position());
+        assertEquals(404, failures.get(1).status());
+    }
+
+    private byte[] read(String resource) throws IOException {
+        return IOUtils.asBytes(getClass().getResourceAsStream(resource)).bytes();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BulkSizeControllerTest {
+
+    @Test
+    public void testStartsAtMin() throws Exception {
+        BulkSizeController controller = new BulkSizeController(100, 2100, 1000);
+        assertEquals(100, controller.size());
+    }
+
+    @Test
+    public void testAdditiveIncrease() throws Exception {
+        BulkSizeController controller = new BulkSizeController(100, 2100, 1000);
+        controller.update(10, 10, 0);
+        assertEquals(200, controller.size());
+        for (int i = 0; i < 100; i++) {
+            controller.update(10, 10, 0);
+        }
+        // capped
+        assertEquals(2100, controller.size());
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnRejection() throws Exception {
+        BulkSizeController controller = new BulkSizeController(100, 2100, 1000);
+        for (int i = 0; i < 20; i++) {
+            controller.update(10, 10, 0);
+        }
+        controller.update(10, 10, 1);
+        assertEquals(1050, controller.size());
+        for (int i = 0; i < 10; i++) {
+            controller.update(10, 10, 1);
+        }
+        // floored
+        assertEquals(100, controller.size());
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnLatency() throws Exception {
+        BulkSizeController controller = new BulkSizeController(100, 2100, 1000);
+        for (int i = 0; i < 20; i++) {
+            controller.update(10, 10, 0);
+        }
+        controller.update(1001, 10, 0);
+        assertEquals(1050, controller.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBounds() throws Exception {
+        new BulkSizeController(200, 100, 1000);
+    }
+}
@@ -15,11 +15,19 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.codehaus.jackson.map.ObjectMapper;
 import org.elasticsearch.hadoop.rest.dto.mapping.Field;
 import org.elasticsearch.hadoop.serialization.FieldType;
+import org.elasticsearch.hadoop.util.IOUtils;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -84,4 +92,47 @@ public class FieldTest {
         assertEquals("person", fl.name());
         assertEquals(0, fl.properties().length);
     }
+
+    private static byte[] write(Field field) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        field.write(out);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Field read(byte[] bytes) throws Exception {
+        return Field.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        Map value = new ObjectMapper().readValue(getClass().getResourceAsStream("nested.json"), Map.class);
+        Field fl = Field.parseField(value);
+        Field copy = read(write(fl));
+        assertEquals(fl.toString(), copy.toString());
+        assertEquals(FieldType.OBJECT, copy.properties()[1].type());
+        assertEquals(FieldType.STRING, copy.properties()[1].properties()[0].type());
+    }
+
+    @Test
+    public void testBinaryEncodingIsCompact() throws Exception {
+        List<Field> fields = new ArrayList<Field>();
+        for (int i = 0; i < 2000; i++) {
+            fields.add(new Field("field" + i, (i % 2 == 0 ? FieldType.STRING : FieldType.LONG)));
+        }
+        Field fl = new Field("tweet", FieldType.OBJECT, fields);
+
+        byte[] binary = write(fl);
+        String base64 = IOUtils.serializeToBase64(fl);
+        assertEquals(fl.toString(), read(binary).toString());
+        assertTrue(String.format("binary [%d] vs base64 [%d]", binary.length, base64.length()), binary.length * 2 < base64.length());
+    }
+
+    @Test(expected = IOException.class)
+    public void testBinaryUnknownVersion() throws Exception {
+        byte[] bytes = write(new Field("name", FieldType.STRING));
+        bytes[0] = 99;
+        read(bytes);
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.InternalConfigurationOptions;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetadataCacheTest {
+
+    private TestSettings settings = new TestSettings("foo/bar");
+
+    private MetadataCache cache() {
+        MetadataCache cache = new MetadataCache(System.currentTimeMillis());
+        cache.hosts(Arrays.asList("1.2.3.4:9200", "1.2.3.5:9200"));
+
+        Map<String, Object> node = new LinkedHashMap<String, Object>();
+        node.put("name", "Hulk");
+        node.put("http_address", "inet[/1.2.3.4:9200]");
+        node.put("jvm", Collections.singletonMap("pid", 123));
+        cache.nodes(Collections.singletonMap("abc", node));
+
+        Map<String, Object> shard = new LinkedHashMap<String, Object>();
+        shard.put("state", "STARTED");
+        shard.put("primary", Boolean.TRUE);
+        shard.put("node", "abc");
+        shard.put("shard", 0);
+        shard.put("index", "foo");
+        List<Map<String, Object>> group = Collections.singletonList(shard);
+        cache.shards("foo/bar/_search_shards", Collections.singletonList(group));
+        cache.exists("foo", "foo/bar");
+        return cache;
+    }
+
+    @Test
+    public void testNoMetadata() throws Exception {
+        assertNull(MetadataCache.load(settings));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        cache().save(settings);
+        MetadataCache cache = MetadataCache.load(settings);
+        assertNotNull(cache);
+        assertEquals(Arrays.asList("1.2.3.4:9200", "1.2.3.5:9200"), cache.hosts());
+
+        Map<String, Object> node = cache.nodes().get("abc");
+        assertEquals("Hulk", node.get("name"));
+        assertEquals("inet[/1.2.3.4:9200]", node.get("http_address"));
+        // unused info is dropped
+        assertFalse(node.containsKey("jvm"));
+
+        List<List<Map<String, Object>>> shards = cache.shards("foo/bar/_search_shards");
+        assertEquals(1, shards.size());
+        assertEquals("abc", shards.get(0).get(0).get("node"));
+        assertNull(cache.shards("foo/baz/_search_shards"));
+
+        assertTrue(cache.exists("foo"));
+        assertTrue(cache.exists("foo/bar"));
+        assertFalse(cache.exists("foo/baz"));
+    }
+
+    @Test
+    public void testExpired() throws Exception {
+        new MetadataCache(System.currentTimeMillis() - 120000).save(settings);
+        settings.setProperty(ConfigurationOptions.ES_METADATA_TTL, "1m");
+        assertNull(MetadataCache.load(settings));
+        settings.setProperty(ConfigurationOptions.ES_METADATA_TTL, "5m");
+        assertNotNull(MetadataCache.load(settings));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache().save(settings);
+        settings.setProperty(ConfigurationOptions.ES_METADATA_TTL, "0");
+        assertNull(MetadataCache.load(settings));
+    }
+
+    @Test
+    public void testMissingIndex() throws Exception {
+        settings.setProperty(ConfigurationOptions.ES_NODES_DISCOVERY, "false");
+        RestClient client = new StubRestClient(settings, false);
+        MetadataCache cache = MetadataCache.resolve(client, settings);
+        // the shards are looked up by the tasks, after creating the index
+        assertNull(cache.shards("foo/bar/_search_shards"));
+        assertFalse(cache.exists("foo"));
+        assertNotNull(cache.nodes().get("abc"));
+    }
+
+    @Test
+    public void testExistingIndex() throws Exception {
+        settings.setProperty(ConfigurationOptions.ES_NODES_DISCOVERY, "false");
+        RestClient client = new StubRestClient(settings, true);
+        MetadataCache cache = MetadataCache.resolve(client, settings);
+        assertEquals(Collections.emptyList(), cache.shards("foo/bar/_search_shards"));
+        assertTrue(cache.exists("foo"));
+        assertTrue(cache.exists("foo/bar"));
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        settings.setProperty(InternalConfigurationOptions.INTERNAL_ES_METADATA, "{not json");
+        assertNull(MetadataCache.load(settings));
+    }
+
+    private static class StubRestClient extends RestClient {
+        private final boolean existing;
+
+        StubRestClient(TestSettings settings, boolean existing) {
+            super(settings);
+            this.existing = existing;
+        }
+
+        @Override
+        Map<String, Map<String, Object>> nodesInfo() {
+            return Collections.singletonMap("abc", Collections.<String, Object> singletonMap("name", "Hulk"));
+        }
+
+        @Override
+        public boolean exists(String indexOrType) {
+            return existing;
+        }
+
+        @Override
+        public List<List<Map<String, Object>>> targetShards(Resource resource) {
+            if (!existing) {
+                throw new IllegalStateException("index missing");
+            }
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeSelectorTest {
+
+    private final NodeSelector selector = new NodeSelector(Arrays.asList("a", "b", "c"), 1000);
+
+    @Test
+    public void testUnknownNodesAreUsed() throws Exception {
+        Set<String> used = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            used.add(selector.select(null, 0));
+        }
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), used);
+    }
+
+    @Test
+    public void testLoadIsSpreadAcrossEquallyHealthyNodes() throws Exception {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (int i = 0; i < 3000; i++) {
+            String node = selector.select(null, 0);
+            selector.started(node);
+            selector.success(node, 10);
+            Integer count = counts.get(node);
+            counts.put(node, count == null ? 1 : count + 1);
+        }
+        // not all on one node - each gets roughly a third
+        for (String node : Arrays.asList("a", "b", "c")) {
+            assertTrue(counts.get(node) > 700);
+        }
+    }
+
+    @Test
+    public void testInFlightRequestsCount() throws Exception {
+        NodeSelector pair = new NodeSelector(Arrays.asList("a", "b"), 1000);
+        pair.success("a", 10);
+        pair.success("b", 10);
+        // a is busy so b gets the next requests
+        pair.started("a");
+        pair.started("a");
+        assertEquals("b", pair.select(null, 0));
+        pair.success("a", 10);
+        pair.success("a", 10);
+        assertEquals(0, pair.stats("a").inFlight);
+    }
+
+    @Test
+    public void testSlowestIsAvoided() throws Exception {
+        selector.success("a", 100);
+        selector.success("b", 10);
+        selector.success("c", 50);
+        for (int i = 0; i < 100; i++) {
+            // a always loses the comparison
+            assertFalse("a".equals(selector.select(null, 0)));
+        }
+        // b slows down
+        selector.success("b", 200);
+        selector.success("b", 200);
+        for (int i = 0; i < 100; i++) {
+            assertFalse("b".equals(selector.select(null, 0)));
+        }
+    }
+
+    @Test
+    public void testEwma() throws Exception {
+        selector.success("a", 100);
+        assertEquals(100d, selector.stats("a").latency, 0d);
+        selector.success("a", 200);
+        assertEquals(130d, selector.stats("a").latency, 0.001d);
+    }
+
+    @Test
+    public void testExclude() throws Exception {
+        assertEquals("c", selector.select(Arrays.asList("a", "b"), 0));
+        assertNull(selector.select(Arrays.asList("a", "b", "c"), 0));
+    }
+
+    @Test
+    public void testFailingNodeIsAvoided() throws Exception {
+        selector.success("a", 1);
+        selector.success("b", 100);
+        selector.success("c", 100);
+        selector.failure("a", 0);
+        assertFalse(selector.isHealthy("a"));
+        for (int i = 0; i < 5; i++) {
+            assertFalse("a".equals(selector.select(null, 500)));
+        }
+    }
+
+    @Test
+    public void testProbeAfterCooldown() throws Exception {
+        selector.success("a", 1);
+        selector.success("b", 100);
+        selector.success("c", 100);
+        selector.failure("a", 0);
+        // cool-down over - a single probe
+        assertEquals("a", selector.select(null, 1000));
+        assertFalse("a".equals(selector.select(null, 1000)));
+        // probe succeeded
+        selector.success("a", 1);
+        assertTrue(selector.isHealthy("a"));
+        Set<String> used = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            used.add(selector.select(null, 1000));
+        }
+        assertTrue(used.contains("a"));
+    }
+
+    @Test
+    public void testCooldownGrows() throws Exception {
+        selector.failure("a", 0);
+        assertEquals("a", selector.select(Arrays.asList("b", "c"), 1000));
+        // probe failed
+        selector.failure("a", 1000);
+        assertEquals(3000, selector.stats("a").retryAt);
+    }
+
+    @Test
+    public void testAllUnhealthy() throws Exception {
+        selector.failure("a", 0);
+        selector.failure("b", 0);
+        selector.failure("b", 0);
+        selector.failure("c", 0);
+        selector.failure("c", 0);
+        selector.failure("c", 0);
+        // the node closest to recovery
+        assertEquals("a", selector.select(Collections.<String> emptyList(), 10));
+    }
+}
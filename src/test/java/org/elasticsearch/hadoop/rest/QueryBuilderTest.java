@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.util.List;
+
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryBuilderTest {
+
+    @Test
+    public void testNoFilter() throws Exception {
+        QueryBuilder qb = createBuilder("{\"query\":{\"match_all\":{}}}");
+        assertEquals("{\"query\":{\"match_all\":{}}}", qb.assembleBody(null).toString());
+    }
+
+    @Test
+    public void testFilterOnBodyQuery() throws Exception {
+        QueryBuilder qb = createBuilder("{\"query\":{\"match_all\":{}}}");
+        qb.filter("{\"term\":{\"a\":1}}");
+        assertEquals("{\"query\":{\"filtered\":{\"query\":{\"match_all\":{}},\"filter\":{\"term\":{\"a\":1}}}}}", qb.assembleBody(null).toString());
+    }
+
+    @Test
+    public void testMultipleFilters() throws Exception {
+        QueryBuilder qb = createBuilder("{\"query\":{\"match_all\":{}}}");
+        qb.filter("{\"term\":{\"a\":1}}").filter("{\"term\":{\"b\":2}}");
+        assertEquals("{\"query\":{\"filtered\":{\"query\":{\"match_all\":{}},\"filter\":{\"and\":[{\"term\":{\"a\":1}},{\"term\":{\"b\":2}}]}}}}", qb.assembleBody(null).toString());
+    }
+
+    @Test
+    public void testFilterOnUriQuery() throws Exception {
+        QueryBuilder qb = createBuilder("?q=foo");
+        qb.filter("{\"term\":{\"a\":1}}");
+        assertEquals("{\"filter\":{\"term\":{\"a\":1}}}", qb.assembleBody(null).toString());
+    }
+
+    @Test
+    public void testRangeSlicesIntegral() throws Exception {
+        List<String> slices = QueryBuilder.rangeSlices("f", 0, 100, 4);
+        assertEquals(4, slices.size());
+        assertEquals("{\"or\":[{\"range\":{\"f\":{\"lt\":25}}},{\"missing\":{\"field\":\"f\"}}]}", slices.get(0));
+        assertEquals("{\"range\":{\"f\":{\"gte\":25,\"lt\":50}}}", slices.get(1));
+        assertEquals("{\"range\":{\"f\":{\"gte\":50,\"lt\":75}}}", slices.get(2));
+        assertEquals("{\"range\":{\"f\":{\"gte\":75}}}", slices.get(3));
+    }
+
+    @Test
+    public void testRangeSlicesDecimal() throws Exception {
+        List<String> slices = QueryBuilder.rangeSlices("f", 0, 1.5, 2);
+        assertEquals(2, slices.size());
+        assertEquals("{\"range\":{\"f\":{\"gte\":0.75}}}", slices.get(1));
+    }
+
+    @Test
+    public void testRangeSlicesNarrowInterval() throws Exception {
+        // not enough distinct values
+        assertEquals(2, QueryBuilder.rangeSlices("f", 0, 2, 10).size());
+        assertTrue(QueryBuilder.rangeSlices("f", 5, 5, 10).isEmpty());
+        assertTrue(QueryBuilder.rangeSlices("f", Double.NaN, Double.NaN, 10).isEmpty());
+        assertTrue(QueryBuilder.rangeSlices("f", 0, 100, 1).isEmpty());
+    }
+
+    private QueryBuilder createBuilder(String query) {
+        Settings s = new TestSettings("foo/bar");
+        s.setQuery(query);
+        return new QueryBuilder(s);
+    }
+}
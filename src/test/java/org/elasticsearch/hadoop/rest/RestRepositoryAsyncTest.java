@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.serialization.JdkValueWriter;
+import org.elasticsearch.hadoop.serialization.MapFieldExtractor;
+import org.elasticsearch.hadoop.serialization.SerializationUtils;
+import org.elasticsearch.hadoop.util.ByteSequence;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RestRepositoryAsyncTest {
+
+    /**
+     * Client recording the bulk requests - these can be held (until released) or fail.
+     */
+    private static class StubRestClient extends RestClient {
+        final List<String> bulks = new CopyOnWriteArrayList<String>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean hold = false;
+        volatile IOException failure;
+        volatile boolean closed = false;
+
+        StubRestClient(Settings settings) {
+            super(settings);
+        }
+
+        @Override
+        public BulkResponse bulk(Resource resource, ByteSequence buffer) throws IOException {
+            started.countDown();
+            if (hold) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            bulks.add(buffer.toString());
+            return BulkResponse.ok();
+        }
+
+        @Override
+        public void refresh(Resource resource) {
+            // no-op
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private StubRestClient client;
+    private RestRepository repository;
+
+    private RestRepository repository(int entries) {
+        Settings settings = new TestSettings("foo/bar");
+        SerializationUtils.setValueWriterIfNotSet(settings, JdkValueWriter.class, null);
+        InitializationUtils.setFieldExtractorIfNotSet(settings, MapFieldExtractor.class, null);
+        settings.setProperty(ConfigurationOptions.ES_WRITE_OPERATION, ConfigurationOptions.ES_OPERATION_INDEX);
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_ASYNC, "true");
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_ASYNC_INFLIGHT, "1");
+        settings.setProperty(ConfigurationOptions.ES_BATCH_SIZE_ENTRIES, String.valueOf(entries));
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_REFRESH, "false");
+        client = new StubRestClient(settings);
+        repository = new RestRepository(settings, client);
+        return repository;
+    }
+
+    @After
+    public void after() {
+        if (client != null) {
+            // unblock any held request
+            client.release.countDown();
+        }
+    }
+
+    private static Object doc(int n) {
+        return Collections.singletonMap("n", n);
+    }
+
+    @Test
+    public void testWriteWhileBatchInFlight() throws Exception {
+        RestRepository repo = repository(2);
+        client.hold = true;
+
+        repo.writeToIndex(doc(1));
+        repo.writeToIndex(doc(2));
+        assertTrue(client.started.await(10, TimeUnit.SECONDS));
+
+        // the first batch is in-flight yet the task keeps on writing
+        repo.writeToIndex(doc(3));
+        assertTrue(client.bulks.isEmpty());
+
+        client.release.countDown();
+        repo.close();
+
+        assertEquals(2, client.bulks.size());
+        assertTrue(client.bulks.get(0).contains("{\"n\":1}"));
+        assertTrue(client.bulks.get(0).contains("{\"n\":2}"));
+        assertTrue(client.bulks.get(1).contains("{\"n\":3}"));
+        assertTrue(client.closed);
+    }
+
+    @Test
+    public void testBackgroundFailureReachesNextWrite() throws Exception {
+        RestRepository repo = repository(1);
+        client.failure = new IOException("node down");
+
+        repo.writeToIndex(doc(1));
+        try {
+            // the failure is reported at the latest once the buffer of the failed batch is reused
+            repo.writeToIndex(doc(2));
+            repo.writeToIndex(doc(3));
+            fail("background failure not reported");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("node down"));
+        }
+    }
+
+    @Test
+    public void testCloseFailsWhenBatchIsLost() throws Exception {
+        RestRepository repo = repository(100);
+        client.failure = new IOException("node down");
+
+        repo.writeToIndex(doc(1));
+        try {
+            repo.close();
+            fail("lost batch not reported");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getCause().getMessage().contains("node down"));
+        }
+        // released nevertheless
+        assertTrue(client.closed);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RestRepositoryRoutingTest {
+
+    private static String routing(String entry) throws Exception {
+        return RestRepository.routing(new BytesArray(entry));
+    }
+
+    @Test
+    public void testRoutingOfSerializedEntry() throws Exception {
+        assertEquals("1", routing("{\"index\":{\"_id\":\"1\"}}\n{\"n\":1}\n"));
+        assertEquals("p", routing("{\"index\":{\"_id\":\"1\",\"_parent\":\"p\"}}\n{\"n\":1}\n"));
+        assertEquals("r", routing("{\"update\":{\"_id\":\"1\",\"_parent\":\"p\",\"_routing\":\"r\"}}\n{\"doc\":{\"_id\":\"x\"}}\n"));
+        // numeric values
+        assertEquals("42", routing("{\"create\":{\"_ttl\":5,\"_id\":42}}\n{}\n"));
+    }
+
+    @Test
+    public void testNoRouting() throws Exception {
+        assertNull(routing("{\"index\":{}}\n{\"_id\":\"1\"}\n"));
+        assertNull(routing("{\"index\":{\"_version\":{\"a\":1},\"_id\":null}}\n{}\n"));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.hadoop.serialization.ScrollReader;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScrollQueryPrefetchTest {
+
+    /**
+     * Repository serving the given number of single-hit pages (or endless pages) and optionally failing on a given page.
+     */
+    private static class StubRepository extends RestRepository {
+        private final int pages;
+        private final int failOn;
+        final AtomicInteger fetched = new AtomicInteger();
+        final Semaphore fetches = new Semaphore(0);
+        volatile boolean fetching = false;
+        volatile boolean fetchingOnClose = false;
+        volatile boolean closed = false;
+
+        StubRepository(int pages, int failOn) {
+            super(new TestSettings("foo/bar"));
+            this.pages = pages;
+            this.failOn = failOn;
+        }
+
+        @Override
+        public List<Object[]> scroll(String scrollId, ScrollReader reader) throws IOException {
+            fetching = true;
+            try {
+                int page = fetched.incrementAndGet();
+                if (page == failOn) {
+                    throw new IllegalStateException("page " + page + " failed");
+                }
+                if (pages > 0 && page > pages) {
+                    return Collections.emptyList();
+                }
+                List<Object[]> hits = new ArrayList<Object[]>(1);
+                hits.add(new Object[] { String.valueOf(page), null });
+                return hits;
+            } finally {
+                fetching = false;
+                fetches.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            fetchingOnClose = fetching;
+            closed = true;
+        }
+    }
+
+    private static List<String> ids(ScrollQuery query) {
+        List<String> ids = new ArrayList<String>();
+        while (query.hasNext()) {
+            ids.add((String) query.next()[0]);
+        }
+        return ids;
+    }
+
+    @Test(timeout = 10000)
+    public void testPagesInOrder() throws Exception {
+        StubRepository repo = new StubRepository(5, -1);
+        ScrollQuery query = new ScrollQuery(repo, "scroll", 5, null, 2);
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), ids(query));
+        assertEquals(5, query.getRead());
+        query.close();
+        assertTrue(repo.closed);
+    }
+
+    @Test(timeout = 10000)
+    public void testEndIsKept() throws Exception {
+        // fewer hits than announced - the end is signaled by an empty page
+        StubRepository repo = new StubRepository(2, -1);
+        ScrollQuery query = new ScrollQuery(repo, "scroll", 10, null, 1);
+        assertEquals(Arrays.asList("1", "2"), ids(query));
+        // no blocking on subsequent calls
+        assertFalse(query.hasNext());
+        assertFalse(query.hasNext());
+        query.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testBackgroundFailureIsRethrown() throws Exception {
+        StubRepository repo = new StubRepository(5, 2);
+        ScrollQuery query = new ScrollQuery(repo, "scroll", 5, null, 1);
+        assertTrue(query.hasNext());
+        assertEquals("1", query.next()[0]);
+        for (int i = 0; i < 2; i++) {
+            try {
+                query.hasNext();
+                fail("background failure not reported");
+            } catch (IllegalStateException ex) {
+                assertEquals("page 2 failed", ex.getMessage());
+            }
+        }
+        query.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWhileProducerIsBlocked() throws Exception {
+        StubRepository repo = new StubRepository(-1, -1);
+        ScrollQuery query = new ScrollQuery(repo, "scroll", Long.MAX_VALUE, null, 1);
+        // one page queued, one waiting to be queued - the producer is blocked
+        assertTrue(repo.fetches.tryAcquire(2, 5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(2, repo.fetched.get());
+
+        query.close();
+        assertTrue(repo.closed);
+        // the producer was stopped before the repository got closed
+        assertFalse(repo.fetchingOnClose);
+        assertFalse(query.hasNext());
+        assertEquals(2, repo.fetched.get());
+    }
+}
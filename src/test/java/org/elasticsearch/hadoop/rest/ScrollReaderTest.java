@@ -15,10 +15,16 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.elasticsearch.hadoop.rest.dto.mapping.Field;
+import org.elasticsearch.hadoop.serialization.FieldType;
 import org.elasticsearch.hadoop.serialization.JdkValueReader;
 import org.elasticsearch.hadoop.serialization.ScrollReader;
 import org.elasticsearch.hadoop.util.IOUtils;
@@ -48,4 +54,61 @@ public class ScrollReaderTest {
         Object[] objects = read.get(0);
         assertTrue(((Map) objects[1]).containsKey("source"));
     }
+
+    @Test
+    public void testScrollFromStream() throws IOException {
+        ScrollReader reader = new ScrollReader(new JdkValueReader(), null);
+        final boolean[] closed = new boolean[1];
+        InputStream content = new FilterInputStream(getClass().getResourceAsStream("scroll-source.json")) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        List<Object[]> read = reader.read(content);
+        assertEquals(2, read.size());
+        assertTrue(((Map) read.get(0)[1]).containsKey("source"));
+        assertTrue("stream not closed", closed[0]);
+    }
+
+    @Test
+    public void testScrollWithNestedMapping() throws IOException {
+        Field nested = new Field("obj", FieldType.OBJECT, Arrays.asList(new Field("n", FieldType.LONG)));
+        Field mapping = new Field("type", FieldType.OBJECT, Arrays.asList(new Field("top", FieldType.LONG), nested));
+        ScrollReader reader = new ScrollReader(new JdkValueReader(), mapping);
+
+        String content = "{\"hits\":{\"total\":2,\"hits\":["
+                + "{\"_id\":\"1\",\"_source\":{\"top\":1,\"obj\":{\"n\":2}}},"
+                + "{\"_id\":\"2\",\"fields\":{\"obj.n\":[3],\"obj\":null}}]}}";
+        List<Object[]> read = reader.read(content.getBytes(StringUtils.UTF_8));
+        assertEquals(2, read.size());
+
+        Map source = (Map) read.get(0)[1];
+        assertEquals(Long.valueOf(1), source.get("top"));
+        assertEquals(Long.valueOf(2), ((Map) source.get("obj")).get("n"));
+
+        Map fields = (Map) read.get(1)[1];
+        assertEquals(Long.valueOf(3), ((List) fields.get("obj.n")).get(0));
+        assertNull(fields.get("obj"));
+    }
+
+    @Test
+    public void testScrollWithProjection() throws IOException {
+        ScrollReader reader = new ScrollReader(new JdkValueReader(), null, Arrays.asList("a", "e.g", "h"));
+
+        String content = "{\"hits\":{\"total\":1,\"hits\":["
+                + "{\"_id\":\"1\",\"_source\":{\"b\":{\"c\":2,\"d\":[1,2,{\"x\":[1]}]},\"a\":1,"
+                + "\"e\":{\"f\":{\"y\":1},\"g\":2,\"z\":[3]},\"h\":{\"i\":[{\"j\":1}]},\"k\":[{\"l\":null}]}}]}}";
+        List<Object[]> read = reader.read(content.getBytes(StringUtils.UTF_8));
+        assertEquals(1, read.size());
+
+        Map source = (Map) read.get(0)[1];
+        assertEquals(3, source.size());
+        assertEquals(1, source.get("a"));
+        assertEquals(Collections.singletonMap("g", 2), source.get("e"));
+        // whole subtree
+        Map h = (Map) source.get("h");
+        assertEquals(1, ((Map) ((List) h.get("i")).get(0)).get("j"));
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimpleHttpRetryPolicyTest {
+
+    private Retry retry(String wait) {
+        TestSettings settings = new TestSettings();
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_COUNT, "3");
+        settings.setProperty(ConfigurationOptions.ES_BATCH_WRITE_RETRY_WAIT, wait);
+        SimpleHttpRetryPolicy policy = new SimpleHttpRetryPolicy();
+        policy.setSettings(settings);
+        return policy.init();
+    }
+
+    @Test
+    public void testOnlyUnavailableIsRetried() throws Exception {
+        Retry retry = retry("10ms");
+        assertFalse(retry.retry(HttpStatus.OK));
+        assertFalse(retry.retry(HttpStatus.BAD_REQUEST));
+        assertTrue(retry.retry(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void testBackoffUpToLimit() throws Exception {
+        Retry retry = retry("1s");
+        long start = System.currentTimeMillis();
+        assertTrue(retry.retry(HttpStatus.SERVICE_UNAVAILABLE));
+        assertTrue(retry.retry(HttpStatus.SERVICE_UNAVAILABLE));
+        assertFalse(retry.retry(HttpStatus.SERVICE_UNAVAILABLE));
+        long waited = System.currentTimeMillis() - start;
+        // first wait is 250-500ms, the last one 500-1000ms (instead of 2 x 1s)
+        assertTrue(waited >= 750 && waited < 1900);
+    }
+}
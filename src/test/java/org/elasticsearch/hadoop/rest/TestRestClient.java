@@ -15,6 +15,8 @@
  */
 package org.elasticsearch.hadoop.rest;
 
+import org.elasticsearch.hadoop.util.IOUtils;
+
 import static org.elasticsearch.hadoop.rest.Request.Method.*;
 
 public class TestRestClient {
@@ -26,10 +28,10 @@ public class TestRestClient {
     }
 
     public void waitForShards() throws Exception {
-        restClient.execute(GET, "_cluster/health?level=indices&wait_for_status=green");
+        IOUtils.close(restClient.execute(GET, "_cluster/health?level=indices&wait_for_status=green"));
     }
 
     public void waitForShards(String index) throws Exception {
-        restClient.execute(GET, "_cluster/health/" + index + "?level=indices&wait_for_status=yellow");
+        IOUtils.close(restClient.execute(GET, "_cluster/health/" + index + "?level=indices&wait_for_status=yellow"));
     }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testStartsEmpty() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000);
+        assertEquals(0d, bucket.tokens(), 0d);
+    }
+
+    @Test
+    public void testRefillIsCapped() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000);
+        bucket.refill(System.currentTimeMillis() + 10000);
+        assertEquals(1000d, bucket.tokens(), 0d);
+    }
+
+    @Test
+    public void testAcquireWithinBudget() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000);
+        bucket.refill(System.currentTimeMillis() + 10000);
+        assertEquals(0, bucket.acquire(400));
+        assertEquals(600d, bucket.tokens(), 0d);
+    }
+
+    @Test
+    public void testAcquireOverBudgetWaits() throws Exception {
+        TokenBucket bucket = new TokenBucket(10000);
+        bucket.refill(System.currentTimeMillis() + 10000);
+        // 2000 tokens short at 10 tokens/ms
+        assertEquals(200, bucket.acquire(12000));
+    }
+
+    @Test
+    public void testShare() throws Exception {
+        assertEquals(0, RestRepository.share(0, 10, 3));
+        assertEquals(100, RestRepository.share(1000, 10, 3));
+        // remainder goes to the first instances
+        assertEquals(34, RestRepository.share(100, 3, 0));
+        assertEquals(33, RestRepository.share(100, 3, 2));
+        // never zero
+        assertEquals(1, RestRepository.share(10, 400, 399));
+    }
+}
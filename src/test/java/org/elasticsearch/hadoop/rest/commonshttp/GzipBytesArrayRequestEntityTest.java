@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.rest.commonshttp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.IOUtils;
+import org.elasticsearch.hadoop.util.StringUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GzipBytesArrayRequestEntityTest {
+
+    private static final String[] LEVELS = { "INFO", "WARN", "DEBUG", "ERROR" };
+    private static final String[] PATHS = { "/index.html", "/api/v1/users", "/static/app.js", "/login", "/search?q=hadoop" };
+
+    // generates a bulk body of (roughly) the given size made of typical access-log entries
+    private static BytesArray logBulk(int size) {
+        Random rnd = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 512);
+        while (sb.length() < size) {
+            sb.append("{\"index\":{}}\n");
+            sb.append("{\"@timestamp\":\"2013-11-").append(10 + rnd.nextInt(20)).append("T")
+              .append(10 + rnd.nextInt(14)).append(":").append(10 + rnd.nextInt(50)).append(":00.")
+              .append(100 + rnd.nextInt(900)).append("Z\",\"level\":\"").append(LEVELS[rnd.nextInt(LEVELS.length)])
+              .append("\",\"host\":\"10.0.").append(rnd.nextInt(256)).append(".").append(rnd.nextInt(256))
+              .append("\",\"request\":\"GET ").append(PATHS[rnd.nextInt(PATHS.length)])
+              .append(" HTTP/1.1\",\"status\":").append(rnd.nextBoolean() ? 200 : 404)
+              .append(",\"bytes\":").append(rnd.nextInt(100000))
+              .append(",\"agent\":\"Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36\"}\n");
+        }
+        byte[] bytes = sb.toString().getBytes(StringUtils.UTF_8);
+        return new BytesArray(bytes, bytes.length);
+    }
+
+    private static byte[] compress(GzipBytesArrayRequestEntity entity) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeRequest(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BytesArray data = logBulk(64 * 1024);
+        GzipBytesArrayRequestEntity entity = new GzipBytesArrayRequestEntity(data);
+        assertEquals(-1, entity.getContentLength());
+        assertTrue(entity.isRepeatable());
+
+        byte[] compressed = compress(entity);
+        assertTrue(compressed.length < data.size());
+        // repeatable
+        assertArrayEquals(compressed, compress(entity));
+
+        BytesArray decompressed = IOUtils.asBytes(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+        assertEquals(data.size(), decompressed.size());
+        assertEquals(data.toString(), decompressed.toString());
+    }
+
+    @Test
+    public void testCpuCostVsBytesSaved() throws Exception {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = mx.isCurrentThreadCpuTimeSupported();
+
+        for (int size : new int[] { 64 * 1024, 1024 * 1024, 5 * 1024 * 1024 }) {
+            BytesArray data = logBulk(size);
+            GzipBytesArrayRequestEntity entity = new GzipBytesArrayRequestEntity(data);
+            // warm-up
+            for (int i = 0; i < 3; i++) {
+                compress(entity);
+            }
+
+            int runs = 10;
+            int compressedSize = 0;
+            long start = (cpuTime ? mx.getCurrentThreadCpuTime() : System.nanoTime());
+            for (int i = 0; i < runs; i++) {
+                compressedSize = compress(entity).length;
+            }
+            long nanos = ((cpuTime ? mx.getCurrentThreadCpuTime() : System.nanoTime()) - start) / runs;
+
+            double ms = nanos / 1000000d;
+            double mbPerSec = (data.size() / (1024d * 1024d)) / (nanos / 1000000000d);
+            System.out.println(String.format("bulk [%8d] bytes -> [%8d] bytes (%.1f%% saved) in [%.2f] ms %s (%.1f MB/s)",
+                    data.size(), compressedSize, 100d * (data.size() - compressedSize) / data.size(), ms,
+                    (cpuTime ? "cpu" : "wall"), mbPerSec));
+        }
+    }
+}
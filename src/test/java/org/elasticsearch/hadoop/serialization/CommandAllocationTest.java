@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.serialization;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
+import org.elasticsearch.hadoop.cfg.Settings;
+import org.elasticsearch.hadoop.rest.InitializationUtils;
+import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.FastByteArrayOutputStream;
+import org.elasticsearch.hadoop.util.PagedBytesArray;
+import org.elasticsearch.hadoop.util.TestSettings;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Measures (through the HotSpot per-thread allocation counter) the garbage created for each document written by a command.
+ */
+public class CommandAllocationTest {
+
+    private static final int DOCS = 200000;
+
+    private final Map<String, Object> doc = new LinkedHashMap<String, Object>();
+    private Method allocatedBytes;
+    private long threadId;
+
+    @Before
+    public void before() throws Exception {
+        try {
+            allocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ClassNotFoundException ex) {
+            // not a HotSpot JVM
+        }
+        assumeNotNull(allocatedBytes);
+        threadId = Thread.currentThread().getId();
+
+        doc.put("name", "kimchy");
+        doc.put("age", 42);
+        doc.put("rating", 4.5d);
+        doc.put("active", true);
+    }
+
+    @Test
+    public void testWriteInPlaceAllocation() throws Exception {
+        Settings settings = new TestSettings();
+        SerializationUtils.setValueWriterIfNotSet(settings, JdkValueWriter.class, null);
+        InitializationUtils.setFieldExtractorIfNotSet(settings, MapFieldExtractor.class, null);
+        settings.setProperty(ConfigurationOptions.ES_WRITE_OPERATION, ConfigurationOptions.ES_OPERATION_INDEX);
+        Command command = BulkCommands.create(settings);
+        PagedBytesArray pages = new PagedBytesArray();
+
+        // warm-up
+        for (int i = 0; i < DOCS; i++) {
+            pages.reset();
+            command.write(doc, pages);
+        }
+
+        long start = allocated();
+        for (int i = 0; i < DOCS; i++) {
+            pages.reset();
+            command.write(doc, pages);
+        }
+        double perDoc = (double) (allocated() - start) / DOCS;
+
+        // reference - a new generator for each document
+        ValueWriter<?> writer = new JdkValueWriter();
+        BytesArray scratch = new BytesArray(1024);
+        for (int i = 0; i < DOCS; i++) {
+            scratch.reset();
+            ContentBuilder.generate(new FastByteArrayOutputStream(scratch), writer).value(doc).flush().close();
+        }
+        start = allocated();
+        for (int i = 0; i < DOCS; i++) {
+            scratch.reset();
+            ContentBuilder.generate(new FastByteArrayOutputStream(scratch), writer).value(doc).flush().close();
+        }
+        double perDocNewGenerator = (double) (allocated() - start) / DOCS;
+
+        System.out.println(String.format("Allocated per document: reused generator [%.1f] bytes, new generator [%.1f] bytes", perDoc, perDocNewGenerator));
+        // relative only - the absolute numbers depend on the JVM (JIT, escape analysis, agents)
+        assertTrue(perDoc * 4 < perDocNewGenerator);
+    }
+
+    private long allocated() throws Exception {
+        return ((Long) allocatedBytes.invoke(ManagementFactory.getThreadMXBean(), threadId)).longValue();
+    }
+}
@@ -24,6 +24,7 @@ import org.elasticsearch.hadoop.cfg.ConfigurationOptions;
 import org.elasticsearch.hadoop.cfg.Settings;
 import org.elasticsearch.hadoop.rest.InitializationUtils;
 import org.elasticsearch.hadoop.util.BytesArray;
+import org.elasticsearch.hadoop.util.PagedBytesArray;
 import org.elasticsearch.hadoop.util.TestSettings;
 import org.junit.Before;
 import org.junit.Test;
@@ -145,6 +146,19 @@ public class CommandTest {
         assertEquals(result, ba.toString());
     }
 
+    @Test
+    public void testWriteInPlace() throws Exception {
+        Settings settings = settings();
+        settings.setProperty(ConfigurationOptions.ES_MAPPING_ROUTING, "s");
+        Command command = create(settings);
+
+        command.write(map).copyTo(ba);
+        PagedBytesArray pages = new PagedBytesArray();
+        command.write(map, pages);
+        command.write(map, pages);
+        assertEquals(ba.toString() + ba.toString(), pages.toString());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testIdMandatory() throws Exception {
         assumeTrue(ConfigurationOptions.ES_OPERATION_UPDATE.equals(operation));
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.serialization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.hadoop.rest.dto.mapping.Field;
+import org.elasticsearch.hadoop.serialization.ScrollReader.MappingNode;
+import org.elasticsearch.hadoop.serialization.ScrollReader.ProjectionNode;
+import org.elasticsearch.hadoop.util.StringUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScrollReaderMappingTest {
+
+    // wide document - objects with leaf fields each
+    private static Field wideMapping(int objects, int leaves) {
+        List<Field> properties = new ArrayList<Field>();
+        for (int i = 0; i < objects; i++) {
+            List<Field> nested = new ArrayList<Field>();
+            for (int j = 0; j < leaves; j++) {
+                nested.add(new Field("field" + j, (j % 2 == 0 ? FieldType.STRING : FieldType.LONG)));
+            }
+            properties.add(new Field("object" + i, FieldType.OBJECT, nested));
+        }
+        return new Field("type", FieldType.OBJECT, properties);
+    }
+
+    private static String wideHits(int hits, int objects, int leaves) {
+        StringBuilder sb = new StringBuilder("{\"hits\":{\"total\":").append(hits).append(",\"hits\":[");
+        for (int h = 0; h < hits; h++) {
+            if (h > 0) {
+                sb.append(",");
+            }
+            sb.append("{\"_id\":\"").append(h).append("\",\"_source\":{");
+            for (int i = 0; i < objects; i++) {
+                if (i > 0) {
+                    sb.append(",");
+                }
+                sb.append("\"object").append(i).append("\":{");
+                for (int j = 0; j < leaves; j++) {
+                    if (j > 0) {
+                        sb.append(",");
+                    }
+                    sb.append("\"field").append(j).append("\":");
+                    if (j % 2 == 0) {
+                        sb.append("\"value").append(j).append("\"");
+                    }
+                    else {
+                        sb.append(j);
+                    }
+                }
+                sb.append("}");
+            }
+            sb.append("}}");
+        }
+        return sb.append("]}}").toString();
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        MappingNode root = MappingNode.compile(wideMapping(2, 2));
+        assertNull(root.type);
+        MappingNode object = root.property("object1");
+        assertNull(object.type);
+        assertEquals(FieldType.LONG, object.property("field1").type);
+        assertNull(object.property("field2"));
+        // full path (as returned by 'fields')
+        assertEquals(FieldType.STRING, root.property("object1.field0").type);
+        assertNull(MappingNode.compile(null));
+    }
+
+    @Test
+    public void testLookupMapUsesFullPath() throws Exception {
+        Map<String, FieldType> map = Field.toLookupMap(wideMapping(1, 2));
+        assertEquals(FieldType.STRING, map.get("object0.field0"));
+        assertEquals(FieldType.LONG, map.get("object0.field1"));
+        assertEquals(2, map.size());
+    }
+
+    /**
+     * Compares the lookup of the field types while walking the document: the string concatenation and map lookup
+     * used previously vs the compiled mapping.
+     */
+    @Test
+    public void testLookupCostOnWideDocuments() throws Exception {
+        int objects = 50, leaves = 40, runs = 2000;
+        Field mapping = wideMapping(objects, leaves);
+
+        // previous approach - path based lookup map
+        Map<String, FieldType> lookup = new LinkedHashMap<String, FieldType>();
+        for (Field object : mapping.properties()) {
+            for (Field leaf : object.properties()) {
+                lookup.put(object.name() + "/" + leaf.name(), leaf.type());
+            }
+        }
+        MappingNode root = MappingNode.compile(mapping);
+
+        // field names as returned by the parser
+        String[] objectNames = new String[objects];
+        String[] leafNames = new String[leaves];
+        for (int i = 0; i < objects; i++) {
+            objectNames[i] = "object" + i;
+        }
+        for (int j = 0; j < leaves; j++) {
+            leafNames[j] = "field" + j;
+        }
+
+        long found = 0;
+        for (int warm = 0; warm < 2; warm++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < runs; r++) {
+                for (String objectName : objectNames) {
+                    for (String leafName : leafNames) {
+                        String path = objectName + "/" + leafName;
+                        if (lookup.get(path) != null) {
+                            found++;
+                        }
+                    }
+                }
+            }
+            long concat = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < runs; r++) {
+                for (String objectName : objectNames) {
+                    MappingNode object = root.property(objectName);
+                    for (String leafName : leafNames) {
+                        if (object.property(leafName).type != null) {
+                            found++;
+                        }
+                    }
+                }
+            }
+            long trie = System.nanoTime() - start;
+
+            double fields = (double) runs * objects * leaves;
+            System.out.println(String.format("field lookup - path concatenation [%.1f] ns/field, compiled mapping [%.1f] ns/field",
+                    concat / fields, trie / fields));
+        }
+        assertEquals(2L * 2 * runs * objects * leaves, found);
+
+        // end-to-end
+        String content = wideHits(100, objects, leaves);
+        byte[] bytes = content.getBytes(StringUtils.UTF_8);
+        ScrollReader reader = new ScrollReader(new JdkValueReader(), mapping);
+        List<Object[]> read = null;
+        long start = System.nanoTime();
+        for (int r = 0; r < 20; r++) {
+            read = reader.read(bytes);
+        }
+        long nanos = (System.nanoTime() - start) / 20;
+        assertEquals(100, read.size());
+        assertEquals(Long.valueOf(1), ((Map) ((Map) read.get(0)[1]).get("object0")).get("field1"));
+        System.out.println(String.format("read [%d] wide hits (%d fields each) in [%.2f] ms", read.size(), objects * leaves, nanos / 1000000d));
+    }
+
+    @Test
+    public void testProjectionCompile() throws Exception {
+        assertNull(ProjectionNode.compile(null));
+        assertNull(ProjectionNode.compile(Arrays.asList(" ")));
+
+        ProjectionNode root = ProjectionNode.compile(Arrays.asList("a.b", "a.b.c", "d", "e.f", "e"));
+        assertFalse(root.includesAll());
+        assertTrue(root.property("a").property("b").includesAll());
+        assertTrue(root.property("d").includesAll());
+        assertTrue(root.property("e").includesAll());
+        assertNull(root.property("f"));
+    }
+
+    @Test
+    public void testProjectionOnWideDocuments() throws Exception {
+        int objects = 50, leaves = 40, runs = 20;
+        Field mapping = wideMapping(objects, leaves);
+        byte[] bytes = wideHits(100, objects, leaves).getBytes(StringUtils.UTF_8);
+
+        ScrollReader all = new ScrollReader(new JdkValueReader(), mapping);
+        ScrollReader projected = new ScrollReader(new JdkValueReader(), mapping, Arrays.asList("object0.field1", "object7", "object49.field0"));
+
+        for (int warm = 0; warm < 2; warm++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < runs; r++) {
+                all.read(bytes);
+            }
+            long full = (System.nanoTime() - start) / runs;
+
+            List<Object[]> read = null;
+            start = System.nanoTime();
+            for (int r = 0; r < runs; r++) {
+                read = projected.read(bytes);
+            }
+            long partial = (System.nanoTime() - start) / runs;
+
+            Map source = (Map) read.get(0)[1];
+            assertEquals(3, source.size());
+            assertEquals(leaves, ((Map) source.get("object7")).size());
+            assertEquals(Long.valueOf(1), ((Map) source.get("object0")).get("field1"));
+
+            System.out.println(String.format("read [%d] wide hits - all fields [%.2f] ms, projected fields [%.2f] ms", read.size(),
+                    full / 1000000d, partial / 1000000d));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BackoffUtilsTest {
+
+    @Test
+    public void testBackoff() throws Exception {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            long first = BackoffUtils.backoff(60000, 0, 3, random);
+            assertTrue(first >= 7500 && first <= 15000);
+            long second = BackoffUtils.backoff(60000, 1, 3, random);
+            assertTrue(second >= 15000 && second <= 30000);
+            long last = BackoffUtils.backoff(60000, 2, 3, random);
+            assertTrue(last >= 30000 && last <= 60000);
+        }
+    }
+
+    @Test
+    public void testFullJitter() throws Exception {
+        Random random = new Random(1);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long first = BackoffUtils.fullJitter(60000, 0, 3, random);
+            assertTrue(first >= 0 && first <= 15000);
+            long last = BackoffUtils.fullJitter(60000, 2, 3, random);
+            assertTrue(last >= 0 && last <= 60000);
+            min = Math.min(min, last);
+        }
+        // no fixed minimum wait
+        assertTrue(min < 30000);
+        assertEquals(0, BackoffUtils.fullJitter(60000, 0, 100, random));
+    }
+
+    @Test
+    public void testBackoffBeyondRetries() throws Exception {
+        Random random = new Random(1);
+        // retrying past the limit never exceeds the maximum wait
+        assertTrue(BackoffUtils.backoff(60000, 5, 3, random) <= 60000);
+    }
+
+    @Test
+    public void testBackoffVanishingWait() throws Exception {
+        Random random = new Random(1);
+        assertEquals(0, BackoffUtils.backoff(60000, 0, 100, random));
+        assertEquals(0, BackoffUtils.backoff(0, 2, 3, random));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PagedBytesArrayTest {
+
+    private static final int PAGE = PagedBytesArray.PAGE_SIZE;
+
+    @Test
+    public void testAddAcrossPages() throws Exception {
+        PagedBytesArray data = new PagedBytesArray();
+        byte[] expected = bytes(2 * PAGE + 100);
+
+        // mix single bytes and chunks straddling the page boundaries
+        data.add(expected[0]);
+        data.add(expected, 1, PAGE);
+        data.outputStream().write(expected, PAGE + 1, PAGE - 1);
+        for (int i = 2 * PAGE; i < expected.length; i++) {
+            data.add(expected[i]);
+        }
+
+        assertEquals(expected.length, data.size());
+        assertArrayEquals(expected, content(data));
+    }
+
+    @Test
+    public void testMove() throws Exception {
+        PagedBytesArray data = new PagedBytesArray();
+        byte[] source = bytes(3 * PAGE);
+        data.add(source);
+
+        // move a range spanning two pages to the front, overlapping the source
+        data.move(PAGE - 10, 5, PAGE + 20);
+        data.truncate(5 + PAGE + 20);
+
+        byte[] expected = new byte[5 + PAGE + 20];
+        System.arraycopy(source, 0, expected, 0, 5);
+        System.arraycopy(source, PAGE - 10, expected, 5, PAGE + 20);
+        assertArrayEquals(expected, content(data));
+    }
+
+    @Test
+    public void testPool() throws Exception {
+        PagedBytesArray.PagePool pool = new PagedBytesArray.PagePool(PAGE + 1);
+        PagedBytesArray data = new PagedBytesArray(pool);
+        data.add(bytes(PAGE * 3));
+        data.release();
+        // bounded by the given size, rounded up to whole pages
+        assertEquals(2, pool.size());
+
+        PagedBytesArray other = new PagedBytesArray(pool);
+        other.add(bytes(PAGE + 1));
+        assertEquals(0, pool.size());
+        assertEquals(PAGE + 1, other.size());
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        PagedBytesArray data = new PagedBytesArray();
+        data.add(bytes(PAGE + 1));
+        data.reset();
+        assertEquals(0, data.size());
+        data.add("reused".getBytes(StringUtils.UTF_8));
+        assertEquals("reused", data.toString());
+
+        data.release();
+        assertEquals(0, data.size());
+        data.add("released".getBytes(StringUtils.UTF_8));
+        assertEquals("released", data.toString());
+    }
+
+    @Test
+    public void testRetainAcrossPages() throws Exception {
+        TrackingBytesArray tracking = new TrackingBytesArray(new PagedBytesArray());
+        byte[] first = bytes(PAGE - 3);
+        byte[] second = bytes(PAGE + 7);
+        byte[] third = bytes(11);
+        tracking.newEntry().add(first);
+        tracking.newEntry().add(second);
+        tracking.newEntry().add(third);
+
+        tracking.retain(Arrays.asList(1, 2));
+        byte[] expected = new byte[second.length + third.length];
+        System.arraycopy(second, 0, expected, 0, second.length);
+        System.arraycopy(third, 0, expected, second.length, third.length);
+        assertEquals(2, tracking.entries());
+        assertArrayEquals(expected, content(tracking.bytes()));
+
+        tracking.discardLast();
+        assertEquals(1, tracking.entries());
+        assertArrayEquals(second, content(tracking.bytes()));
+    }
+
+    private static byte[] content(PagedBytesArray data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RoutingUtilsTest {
+
+    @Test
+    public void testDjbHash() throws Exception {
+        assertEquals(177622, RoutingUtils.djbHash("1"));
+        assertEquals(25922528, RoutingUtils.djbHash("hadoop"));
+        // overflow
+        assertEquals(-2070458313, RoutingUtils.djbHash("document-42"));
+    }
+
+    @Test
+    public void testShardId() throws Exception {
+        assertEquals(2, RoutingUtils.shardId("1", 5));
+        assertEquals(3, RoutingUtils.shardId("hadoop", 5));
+        assertEquals(0, RoutingUtils.shardId("hadoop", 1));
+    }
+
+    @Test
+    public void testShardIdOfNegativeHash() throws Exception {
+        // |-2070458313 % 5| = |-3|
+        assertEquals(3, RoutingUtils.shardId("document-42", 5));
+    }
+}
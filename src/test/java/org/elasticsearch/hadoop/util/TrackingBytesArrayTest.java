@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.elasticsearch.hadoop.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrackingBytesArrayTest {
+
+    private TrackingBytesArray data;
+
+    @Before
+    public void before() {
+        data = new TrackingBytesArray(new PagedBytesArray());
+        add("first\n");
+        add("second\n");
+        add("third\n");
+        add("fourth\n");
+    }
+
+    @Test
+    public void testEntries() {
+        assertEquals(4, data.entries());
+        assertEquals("first\nsecond\nthird\nfourth\n", data.toString());
+    }
+
+    @Test
+    public void testRetainSome() {
+        data.retain(Arrays.asList(1, 3));
+        assertEquals(2, data.entries());
+        assertEquals("second\nfourth\n", data.toString());
+
+        data.retain(Arrays.asList(1));
+        assertEquals(1, data.entries());
+        assertEquals("fourth\n", data.toString());
+    }
+
+    @Test
+    public void testRetainAll() {
+        data.retain(Arrays.asList(0, 1, 2, 3));
+        assertEquals(4, data.entries());
+        assertEquals("first\nsecond\nthird\nfourth\n", data.toString());
+    }
+
+    @Test
+    public void testRetainNone() {
+        data.retain(Collections.<Integer> emptyList());
+        assertEquals(0, data.entries());
+        assertEquals(0, data.length());
+    }
+
+    @Test
+    public void testAddAfterRetain() {
+        data.retain(Arrays.asList(2));
+        add("fifth\n");
+        assertEquals(2, data.entries());
+        data.retain(Arrays.asList(1));
+        assertEquals("fifth\n", data.toString());
+    }
+
+    private void add(String entry) {
+        BytesRef ref = new BytesRef();
+        ref.add(new BytesArray(entry));
+        data.copyFrom(ref);
+    }
+}